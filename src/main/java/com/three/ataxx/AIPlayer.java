@@ -1,8 +1,7 @@
 package com.three.ataxx;
 
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 // Final Project Part A.2 Ataxx AI Player (A group project)
@@ -10,18 +9,88 @@ import static java.lang.Math.min;
 /** A Player that computes its own moves. */
 class AIPlayer extends Player {
 
-    /** Maximum minimax search depth before going to static evaluation. */
-    private static final int MAX_DEPTH = 5;
+    /** Maximum minimax search depth before going to static evaluation.
+     *  In practice the search is bounded by the time budget first. */
+    static final int MAX_DEPTH = 64;
 
-    /** A position magnitude indicating a win (for red if positive, blue if negative). */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
+    /** Default time budget for one move, in milliseconds. */
+    static final long DEFAULT_MOVE_TIME = 1000;
 
-    /** A magnitude greater than a normal value. */
-    private static final int INFINITY = Integer.MAX_VALUE;
+    /** Time in milliseconds after which a ponder search that has been
+     *  neither hit nor missed gives up. */
+    static final long MAX_PONDER_TIME = 60000;
+
+    /** Default size of the transposition table, in megabytes. */
+    static final int DEFAULT_HASH_SIZE = 16;
+
+    /** Default number of empty squares at or below which I try to solve
+     *  the position outright (see setEndgame). */
+    static final int DEFAULT_ENDGAME_EMPTIES = 3;
 
     /** The move found by the last call to the findMove method above. */
     private Move lastFoundMove;
 
+    /** The statistics of the search that found lastFoundMove. */
+    private SearchStats lastStats;
+
+    /** Results of earlier searches, kept for the whole game and shared
+     *  by all of my searchers. */
+    private TranspositionTable table = new TranspositionTable(DEFAULT_HASH_SIZE);
+
+    /** One searcher for each of my threads.  The first searches in the
+     *  thread that calls findMove and decides the move; the rest are
+     *  helpers (see setThreads). */
+    private Searcher[] searchers = { new Searcher(table) };
+
+    /** Time budget for one move, in milliseconds. */
+    private long moveTime = DEFAULT_MOVE_TIME;
+
+    /** Depth at which iterative deepening stops even if time remains. */
+    private int maxDepth = MAX_DEPTH;
+
+    /** The deterministic parallel search used instead of my searchers,
+     *  or null (see setDeterministic). */
+    private ParallelSearch parallelSearch;
+
+    /** The depth of each deterministic search (see setDeterministic). */
+    private int deterministicDepth;
+
+    /** True iff I search during my opponent's turns (see setPondering). */
+    private boolean pondering;
+
+    /** The thread of the current ponder search, or null. */
+    private Thread ponderThread;
+
+    /** The position the current ponder search is searching. */
+    private Board ponderPosition;
+
+    /** Set to stop the current ponder search. */
+    private AtomicBoolean ponderCancel;
+
+    /** The move found by the current ponder search, once it is over. */
+    private volatile Move ponderMove;
+
+    /** Number of my moves found by ponder searches (see ponderHits). */
+    private int ponderHits;
+
+    /** Positions with at most this many empty squares go to my
+     *  endgame solver first. */
+    private int endgameEmpties = DEFAULT_ENDGAME_EMPTIES;
+
+    /** True iff my endgame solver finds exact margins rather than just
+     *  wins, losses and draws. */
+    private boolean exactEndgame;
+
+    /** My endgame solver, created when first needed. */
+    private EndgameSolver solver;
+
+    /** Number of entries in each searcher's evaluation cache. */
+    private int evalCacheSize = EvalCache.DEFAULT_SIZE;
+
+    /** Switches for the selective parts of the search. */
+    private boolean lateMoveReductions = true, futilityPruning = true,
+        probCut = true;
+
     /**
      * Constructs a new AIPlayer for GAME that will play MYCOLOR.
      * SEED is used to initialize a random-number generator,
@@ -36,6 +105,259 @@ class AIPlayer extends Player {
         super(game, myColor);
     }
 
+    /**
+     * Set the time budget for each of my moves.
+     *
+     * @param millis the budget in milliseconds
+     */
+    void setMoveTime(long millis) {
+        moveTime = millis;
+    }
+
+    /**
+     * Set the depth at which my search stops even if it has time left.
+     *
+     * @param depth the depth, at most MAX_DEPTH
+     */
+    void setMaxDepth(int depth) {
+        maxDepth = min(depth, MAX_DEPTH);
+    }
+
+    /**
+     * Turn late move reductions, futility pruning and ProbCut on or off,
+     * as LMR, FUTILITY and PROBCUT say.  With all three off, my search
+     * is full width to its depth.
+     *
+     * @param lmr use late move reductions
+     * @param futility use futility pruning
+     * @param probcut use ProbCut
+     */
+    void setPruning(boolean lmr, boolean futility, boolean probcut) {
+        stopPondering();
+        lateMoveReductions = lmr;
+        futilityPruning = futility;
+        probCut = probcut;
+        for (Searcher searcher : searchers) {
+            searcher.setPruning(lmr, futility, probcut);
+        }
+    }
+
+    /**
+     * Replace my transposition table with an empty one of about MEGABYTES
+     * megabytes.
+     *
+     * @param megabytes the size of the table
+     */
+    void setHashSize(int megabytes) {
+        stopPondering();
+        table = new TranspositionTable(megabytes);
+        for (Searcher searcher : searchers) {
+            searcher.setTable(table);
+        }
+    }
+
+    /**
+     * Search with THREADS threads (Lazy SMP).  Each thread runs the same
+     * iterative deepening search with its own board, move lists and
+     * ordering tables, and all of them share my transposition table, so
+     * that each finds much of its work already done by the others.  Half
+     * of the helpers start one ply deeper, so that the threads do not
+     * keep to the same depths.  With one thread (the default) my moves
+     * depend only on the position and the game so far.
+     *
+     * @param threads the number of threads, at least 1
+     */
+    void setThreads(int threads) {
+        stopPondering();
+        Searcher[] newSearchers = new Searcher[Math.max(1, threads)];
+        for (int i = 0; i < newSearchers.length; i++) {
+            if (i < searchers.length) {
+                newSearchers[i] = searchers[i];
+            } else {
+                newSearchers[i] = new Searcher(table);
+                newSearchers[i].setEvalCacheSize(evalCacheSize);
+            }
+            newSearchers[i].setPruning(lateMoveReductions, futilityPruning,
+                                       probCut);
+        }
+        searchers = newSearchers;
+    }
+
+    /**
+     * Search each move to exactly DEPTH plies (at most MAX_DEPTH),
+     * ignoring my time budget, with a deterministic parallel search on
+     * THREADS threads (see ParallelSearch), so that the same position
+     * always gives the same move whatever the number of threads.  The
+     * search is full width, so its time grows steeply with DEPTH: a
+     * depth of 4 or 5 already takes seconds.  With THREADS 0, go back to
+     * my usual timed search.
+     *
+     * @param threads the number of threads, or 0
+     * @param depth the depth of each search
+     */
+    void setDeterministic(int threads, int depth) {
+        stopPondering();
+        if (parallelSearch != null) {
+            parallelSearch.close();
+        }
+        parallelSearch = threads > 0 ? new ParallelSearch(threads) : null;
+        deterministicDepth = Math.max(1, min(depth, MAX_DEPTH));
+    }
+
+    /**
+     * Turn pondering on or off.  When it is on, once I have chosen a move
+     * I guess my opponent's reply (the one my search expects), and search
+     * the position after it in the background while my opponent thinks.
+     * If the guess is right, that search simply continues, with my usual
+     * time budget from then on; if not, it is dropped, though the
+     * positions it stored in my transposition table may still help.
+     * Positions for my endgame solver (see setEndgame) are not pondered,
+     * and changing how I search stops a ponder search under way.
+     *
+     * @param on true to ponder
+     */
+    void setPondering(boolean on) {
+        pondering = on;
+        if (!on) {
+            stopPondering();
+        }
+    }
+
+    /**
+     * Stop my ponder search, if any, and drop its result.
+     */
+    @Override
+    void stop() {
+        stopPondering();
+    }
+
+    /**
+     * Return the position my ponder search is searching, or null if
+     * there is none.
+     *
+     * @return the position being pondered
+     */
+    Board ponderPosition() {
+        return ponderPosition == null ? null : new Board(ponderPosition);
+    }
+
+    /**
+     * Return the number of my moves that were found by a ponder search
+     * whose guess was right.
+     *
+     * @return the number of ponder hits
+     */
+    int ponderHits() {
+        return ponderHits;
+    }
+
+    /**
+     * Try to solve positions with at most EMPTIES empty squares to the
+     * end of the game (see EndgameSolver) before searching them as
+     * usual, finding the best margin if EXACT, and otherwise just
+     * whether I can win.  The solver gets half of my time budget; if it
+     * runs out, or finds no win when not EXACT, the usual search gets
+     * the rest.  Lines of jumps make even positions with few empty
+     * squares hard to solve, so the threshold should be small, and exact
+     * margins take much longer.  EMPTIES 0 turns the solver off.
+     *
+     * @param empties the threshold
+     * @param exact find exact margins
+     */
+    void setEndgame(int empties, boolean exact) {
+        endgameEmpties = empties;
+        exactEndgame = exact;
+    }
+
+    /**
+     * Give each of my searchers an evaluation cache (see EvalCache) of
+     * about SIZE entries, or none if SIZE is 0.
+     *
+     * @param size the number of entries
+     */
+    void setEvalCacheSize(int size) {
+        stopPondering();
+        evalCacheSize = size;
+        for (Searcher searcher : searchers) {
+            searcher.setEvalCacheSize(size);
+        }
+    }
+
+    /**
+     * Return the number of lookups in my searchers' evaluation caches
+     * that found their position, since the caches were created.
+     *
+     * @return the number of hits
+     */
+    long evalCacheHits() {
+        long total = 0;
+        for (Searcher searcher : searchers) {
+            if (searcher.evalCache() != null) {
+                total += searcher.evalCache().hits();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Return the number of lookups in my searchers' evaluation caches
+     * that did not find their position, since the caches were created.
+     *
+     * @return the number of misses
+     */
+    long evalCacheMisses() {
+        long total = 0;
+        for (Searcher searcher : searchers) {
+            if (searcher.evalCache() != null) {
+                total += searcher.evalCache().misses();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Return the statistics of my last search for a move (as also sent
+     * to the game's stats listener), or null if I have not searched.
+     *
+     * @return the statistics of my last search
+     */
+    SearchStats stats() {
+        return lastStats;
+    }
+
+    /**
+     * Return the number of nodes visited by my last search for a move,
+     * by whichever engine chose it (as in stats()), or 0 if I have not
+     * searched.
+     *
+     * @return the number of nodes my last search visited.
+     */
+    long nodes() {
+        return lastStats == null ? 0 : lastStats.nodes();
+    }
+
+    /**
+     * Return the depth of the last iteration that my last search completed.
+     *
+     * @return the depth of the last iteration that my last search completed.
+     */
+    int completedDepth() {
+        return searchers[0].completedDepth();
+    }
+
+    /**
+     * Return the time in milliseconds that my last search took to
+     * complete depth DEPTH, or -1 if it did not.  Comparing this for
+     * different numbers of threads gives the speedup from setThreads.
+     *
+     * @param depth the depth
+     * @return the time my last search took to reach DEPTH
+     */
+    double timeToDepth(int depth) {
+        long nanos = searchers[0].timeToDepth(depth);
+        return nanos < 0 ? -1 : nanos / 1e6;
+    }
+
     /**
      * Return true iff I am an automated player that automatically
      *
@@ -54,7 +376,11 @@ class AIPlayer extends Player {
     @Override
     String getAtaxxMove() {
         Move move = findMove();
+        getAtaxxGame().reportStats(lastStats, getMyState());
         getAtaxxGame().reportMove(move, getMyState());
+        if (pondering && parallelSearch == null) {
+            startPondering(move);
+        }
         return move.toString();
     }
 
@@ -66,9 +392,37 @@ class AIPlayer extends Player {
      */
     private Move findMove() {
         Board b = new Board(getAtaxxBoard());
-        lastFoundMove = null;
-
-        minMax(b, MAX_DEPTH, true, -1, -INFINITY, INFINITY);
+        long start = System.nanoTime();
+        int depth;
+        if (ponderThread != null && b.equals(ponderPosition)) { // ponder hit
+            searchers[0].setMoveTime(moveTime);
+            joinPonderThread();
+            lastFoundMove = ponderMove;
+            lastStats = searcherStats(1);
+            ponderHits += 1;
+            depth = searchers[0].completedDepth();
+        } else {
+            stopPondering();
+            if (parallelSearch != null) {
+                lastFoundMove = parallelSearch.search(b, deterministicDepth);
+                lastStats = new SearchStats("parallel");
+                lastStats.add(parallelSearch.nodes(), 0, 0, 0, 0, 0);
+                depth = deterministicDepth;
+            } else {
+                lastFoundMove = solveEndgame(b);
+                if (lastFoundMove != null) {
+                    lastStats = new SearchStats("endgame");
+                    lastStats.add(solver.nodes(), 0, 0, 0, 0, 0);
+                    depth = Long.bitCount(b.emptyBits());
+                } else {
+                    long used = (System.nanoTime() - start) / 1000000;
+                    lastFoundMove = search(b, Math.max(1, moveTime - used));
+                    lastStats = searcherStats(searchers.length);
+                    depth = searchers[0].completedDepth();
+                }
+            }
+        }
+        lastStats.finish(depth, System.nanoTime() - start);
 
         // Please do not change the codes below
         if (lastFoundMove == null) {
@@ -78,149 +432,139 @@ class AIPlayer extends Player {
     }
 
     /**
-     * Return a heuristic value for BOARD.
+     * Return the merged counts of the last searches of my first N
+     * searchers.  A ponder search runs only the first, so the others'
+     * counts are left over from an earlier move.
      *
-     * @param board the board
-     * @return a heuristic value for BOARD.
-     */
-    private int staticScore(Board board) {
-        PieceState winner = board.getWinner();
-        if (winner != null) {
-            return switch (winner) {
-                case RED -> AIPlayer.WINNING_VALUE; // RED wins
-                case BLUE -> -AIPlayer.WINNING_VALUE; // BLUE wins
-                default -> 0;
-            };
-        }
-        int totalScore;
-
-        // 计算分差
-        int myColor = board.getColorNums(board.nextMove());
-        int oppColor = board.getColorNums(board.nextMove().opposite());
-        int diff = myColor - oppColor;
-
-//        // 计算期盼中心控制力
-//        int myCenterScore = board.CountWeightedScoreByColor(board.nextMove());
-//        int oppCenterScore = board.CountWeightedScoreByColor(board.nextMove().opposite());
-//        int centerDiff = myCenterScore - oppCenterScore;
-
-        // 计算总分
-        // totalScore = diff * 10 + centerDiff * 5 + possibleMoves * 7 + currentDepth;
-        totalScore = diff * 10;
-        return totalScore;
-    }
-
-    /**
-     *  Implementation of minMax and Alpha Beta pruning algorithm
-     *
-     *  @param board the board
-     *  @param depth the depth
-     *  @param saveMove whether to save the move
-     *  @param sense the sense
-     *  @param alpha the alpha
-     *  @param beta the beta
-     *  @return the value
-     */
-    private int minMax(Board board, int depth, boolean saveMove, int sense, int alpha, int beta) {
-        if (depth == 0 || board.getWinner() != null) {
-            return staticScore(board);
-        }
-        int bestValue;
-        if (sense == 1) {
-            bestValue = -INFINITY;
-            ArrayList<Move> listOfMoves = possibleMoves(board, board.nextMove());
-            for (Move move : listOfMoves) {
-                Board copyBoard = new Board(board); // copy the board each time
-                copyBoard.createMove(move);
-                int possible = minMax(copyBoard, depth - 1, false, -1, alpha, beta);
-                if (saveMove && possible > bestValue) { // save the best move
-                    lastFoundMove = move;
-                }
-                bestValue = max(bestValue, possible); // update the best value
-                alpha = max(alpha, bestValue);
-                if (beta <= alpha) { // alpha cut-off
-                    break;
-                }
-            }
-            if (bestValue == -INFINITY) { // no possible moves
-                return 0;
-            }
-        } else {
-            bestValue = INFINITY;
-            ArrayList<Move> listOfMoves = possibleMoves(board, board.nextMove());
-            for (Move move : listOfMoves) {
-                Board copyBoard = new Board(board);
-                copyBoard.createMove(move);
-                int possible = minMax(copyBoard, depth - 1, false, 1, alpha, beta);
-                if (saveMove && possible < bestValue) {
-                    lastFoundMove = move;
-                }
-                bestValue = min(bestValue, possible);
-                beta = min(beta, bestValue);
-                if (beta <= alpha) { // beta cut-off
-                    break;
-                }
-            }
-            if (bestValue == INFINITY) { // no possible moves
-                return 0;
-            }
+     * @param n the number of searchers that took part
+     * @return the statistics
+     */
+    private SearchStats searcherStats(int n) {
+        SearchStats stats = new SearchStats("alpha-beta");
+        for (int i = 0; i < n; i++) {
+            searchers[i].addStatsTo(stats);
         }
-        return bestValue;
+        return stats;
     }
 
     /**
-     * possibleMoves returns an ArrayList of all possible moves for the specified color.
+     * Start a ponder search of the position after my move MOVE and the
+     * reply to it that my transposition table expects, if it knows one
+     * and the position is not one for my endgame solver.
      *
-     * @param board the current board.
-     * @param myColor the specified color.
-     * @return an ArrayList of all possible moves for the specified color.
+     * @param move my move
      */
-    private ArrayList<Move> possibleMoves(Board board, PieceState myColor) {
-        ArrayList<Move> possibleMoves = new ArrayList<>();
+    private void startPondering(Move move) {
+        Board board = new Board(getAtaxxBoard());
+        board.makeMove(move);
+        if (board.getWinner() != null) {
+            return;
+        }
+        long entry = table.probe(board.hashKey());
+        int replyId = TranspositionTable.moveId(entry);
+        if (entry == TranspositionTable.MISS
+                || replyId == TranspositionTable.NO_MOVE
+                || replyId == Move.PASS_ID
+                || !board.moveLegal(Move.byId(replyId))) {
+            return;
+        }
+        board.makeMove(Move.byId(replyId));
+        if (board.getWinner() != null
+                || Long.bitCount(board.emptyBits()) <= endgameEmpties) {
+            return; // over, or for my endgame solver rather than a search
+        }
+        table.newSearch();
+        ponderPosition = new Board(board);
+        ponderCancel = new AtomicBoolean();
+        ponderMove = null;
+        Searcher searcher = searchers[0];
+        AtomicBoolean cancel = ponderCancel;
+        searcher.setMoveTime(MAX_PONDER_TIME);
+        ponderThread = new Thread(() -> ponderMove =
+            searcher.search(board, 1, maxDepth, false, cancel));
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
 
-//        int beginIndex = Board.index('a', '1');
-//        int endIndex = Board.index('g', '7');
-//        for (int i = beginIndex; i <= endIndex; i++) {
-//            if (board.getContent(i) == myColor) {
-//                ArrayList<Move> addMoves = assistPossibleMoves(board, i);
-//                possibleMoves.addAll(addMoves);
-//            }
-//        }
+    /** Stop the current ponder search, if any, and drop its result. */
+    private void stopPondering() {
+        if (ponderThread != null) {
+            ponderCancel.set(true);
+            joinPonderThread();
+        }
+    }
 
-        for (char row = '7'; row >= '1'; row--) { // iterate the board
-            for (char col = 'a'; col <= 'g'; col++) {
-                int index = Board.index(col, row); // get the index
-                if (board.getContent(index) == myColor) { // if it is my color then find all possible moves around
-                    ArrayList<Move> addMoves = assistPossibleMoves(board, row, col);
-                    possibleMoves.addAll(addMoves);
-                }
-            }
+    /** Wait for the current ponder search to finish. */
+    private void joinPonderThread() {
+        try {
+            ponderThread.join();
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
         }
-        return possibleMoves;
+        ponderThread = null;
+        ponderPosition = null;
     }
 
     /**
-     * assist possible moves for a color.
+     * Return the move my endgame solver finds for BOARD in half my time
+     * budget, or null if BOARD has too many empty squares, I must pass,
+     * or the solver runs out of time.  Also return null if the solver
+     * only finds wins, losses and draws and finds no win: then any move
+     * that does not lose is as good as another to it, and my usual
+     * search, which looks at piece counts, chooses better.
      *
-     * @param board the board for testing
-     * @param row the row coordinate of the center
-     * @param col the col coordinate of the center
-     * @return an ArrayList of legal moves.
+     * @param board the board
+     * @return the move found, or null
      */
-    private ArrayList<Move> assistPossibleMoves(Board board, char row, char col) {
-        ArrayList<Move> assistPossibleMoves = new ArrayList<>();
-        for (int i = -2; i <= 2; i++) { // search all possible moves around two steps
-            for (int j = -2; j <= 2; j++) {
-                if (i != 0 || j != 0) {
-                    char row2 = (char) (row + j); // get the row and col of the possible move
-                    char col2 = (char) (col + i);
-                    Move currMove = Move.move(col, row, col2, row2); // create a move
-                    if (board.moveLegal(currMove)) { // if it is legal then add it to the list
-                        assistPossibleMoves.add(currMove);
-                    }
-                }
+    private Move solveEndgame(Board board) {
+        if (Long.bitCount(board.emptyBits()) > endgameEmpties
+                || board.getWinner() != null
+                || board.generateMoves(new MoveList()) == 0) {
+            return null;
+        }
+        if (solver == null) {
+            solver = new EndgameSolver(EndgameSolver.DEFAULT_HASH_SIZE);
+        }
+        if (!solver.solve(board, moveTime / 2, exactEndgame)
+                || (!exactEndgame && solver.value() <= 0)) {
+            return null;
+        }
+        return solver.bestMove();
+    }
+
+    /**
+     * Search BOARD with all of my searchers for about MILLIS
+     * milliseconds, and return the move chosen by the first, or null if
+     * there is none but pass.
+     *
+     * @param board the board
+     * @param millis the time budget
+     * @return the move chosen
+     */
+    private Move search(Board board, long millis) {
+        table.newSearch();
+        AtomicBoolean cancel = new AtomicBoolean();
+        Thread[] helpers = new Thread[searchers.length - 1];
+        for (int i = 1; i < searchers.length; i++) {
+            Searcher helper = searchers[i];
+            Board helperBoard = new Board(board);
+            int firstDepth = 1 + i % 2;
+            helper.setMoveTime(Long.MAX_VALUE);
+            helpers[i - 1] = new Thread(() ->
+                helper.search(helperBoard, firstDepth, maxDepth, true, cancel));
+            helpers[i - 1].setDaemon(true);
+            helpers[i - 1].start();
+        }
+        searchers[0].setMoveTime(millis);
+        Move move = searchers[0].search(board, 1, maxDepth, false, cancel);
+        cancel.set(true);
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException excp) {
+                Thread.currentThread().interrupt();
             }
         }
-        return assistPossibleMoves;
+        return move;
     }
 }
@@ -0,0 +1,156 @@
+package com.three.ataxx;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static com.three.ataxx.TestHelper.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AIPlayerTest {
+
+    @Test
+    public void testLazySMP() {
+        Game game = game("a7-a6", "g7-f7", "g1-e2", "a1-c3");
+        Board board = new Board(game.getAtaxxBoard());
+        int expected = minimax(board, 3);
+        for (int threads = 1; threads <= 4; threads++) {
+            AIPlayer player = new AIPlayer(game, board.nextMove(), 0);
+            player.setThreads(threads);
+            player.setPruning(false, false, false);
+            player.setMaxDepth(3);
+            player.setMoveTime(Long.MAX_VALUE / 2);
+            Move move = Move.move(player.getAtaxxMove());
+            assertEquals(3, player.stats().depth());
+            assertTrue(player.stats().nodes() > 0);
+            board.makeMove(move);
+            assertEquals(expected, -minimax(board, 2));
+            board.unmakeMove();
+        }
+    }
+
+    @Test
+    public void testDeterministic() {
+        Game game = game("a7-b6", "a1-b2", "g1-f2", "g7-f6");
+        PieceState side = game.getAtaxxBoard().nextMove();
+        AIPlayer one = new AIPlayer(game, side, 0);
+        one.setDeterministic(1, 3);
+        AIPlayer two = new AIPlayer(game, side, 0);
+        two.setDeterministic(2, 3);
+        String move = one.getAtaxxMove();
+        assertTrue(game.getAtaxxBoard().moveLegal(Move.move(move)));
+        assertEquals(3, one.stats().depth());
+        assertEquals("parallel", one.stats().engine());
+        assertEquals(one.stats().nodes(), one.nodes());
+        assertEquals(move, one.getAtaxxMove());
+        assertEquals(move, two.getAtaxxMove());
+        one.setDeterministic(0, 0);
+        two.setDeterministic(0, 0);
+    }
+
+    @Test
+    public void testPonderHit() {
+        Game game = game();
+        Board board = game.getAtaxxBoard();
+        AIPlayer player = new AIPlayer(game, PieceState.RED, 0);
+        player.setMoveTime(Long.MAX_VALUE / 2);
+        player.setMaxDepth(3);
+        player.setPondering(true);
+        board.createMove(player.getAtaxxMove());
+        Board pondered = player.ponderPosition();
+        assertNotNull(pondered);
+        MoveList replies = new MoveList();
+        board.generateMoves(replies);
+        for (int k = 0; k < replies.size(); k++) {
+            Board after = new Board(board);
+            after.createMove(replies.move(k));
+            if (after.equals(pondered)) {
+                board.createMove(replies.move(k));
+            }
+        }
+        assertEquals(pondered, board);
+        Move move = Move.move(player.getAtaxxMove());
+        assertTrue(board.moveLegal(move));
+        assertEquals(1, player.ponderHits());
+        player.stop();
+        assertNull(player.ponderPosition());
+    }
+
+    @Test
+    public void testEndgameFallsBackWithoutWin() {
+        EndgameSolver solver = new EndgameSolver(4);
+        int wins = 0, others = 0;
+        for (long seed = 0; seed < 12; seed++) {
+            Game game = game();
+            Board board = game.getAtaxxBoard();
+            Random random = new Random(seed);
+            MoveList moves = new MoveList();
+            while (board.getWinner() == null
+                   && Long.bitCount(board.emptyBits()) > 1) {
+                if (board.generateMoves(moves) == 0) {
+                    board.makeMove(Move.PASS_CODE);
+                } else {
+                    int code = moves.get(random.nextInt(moves.size()));
+                    if (Board.isClone(code) || random.nextInt(4) == 0) {
+                        board.makeMove(code);
+                    }
+                }
+            }
+            if (board.getWinner() != null || board.generateMoves(moves) == 0
+                    || !solver.solve(board, 10000, false)) {
+                continue;
+            }
+            AIPlayer player = new AIPlayer(game, board.nextMove(), 0);
+            player.setMoveTime(200);
+            player.setEndgame(1, false);
+            player.getAtaxxMove();
+            if (solver.value() > 0) {
+                wins += 1;
+                assertEquals("endgame", player.stats().engine());
+            } else {
+                others += 1;
+                assertEquals("alpha-beta", player.stats().engine());
+            }
+            assertEquals(player.stats().nodes(), player.nodes());
+        }
+        assertTrue(wins > 0);
+        assertTrue(others > 0);
+    }
+
+    @Test
+    public void testSettingsStopPondering() {
+        Game game = game();
+        AIPlayer player = new AIPlayer(game, PieceState.RED, 0);
+        player.setMoveTime(Long.MAX_VALUE / 2);
+        player.setMaxDepth(3);
+        player.setPondering(true);
+        Runnable[] settings = {
+            () -> player.setPruning(false, true, true),
+            () -> player.setHashSize(1),
+            () -> player.setThreads(2),
+            () -> player.setEvalCacheSize(0),
+        };
+        for (Runnable setting : settings) {
+            game.getAtaxxBoard().clear();
+            player.getAtaxxMove();
+            assertNotNull(player.ponderPosition());
+            setting.run();
+            assertNull(player.ponderPosition());
+        }
+    }
+
+    @Test
+    public void testNoPonderingInEndgame() {
+        Game game = game();
+        AIPlayer player = new AIPlayer(game, PieceState.RED, 0);
+        player.setMoveTime(50);
+        player.setMaxDepth(3);
+        player.setPondering(true);
+        player.setEndgame(Board.ONESIDE * Board.ONESIDE, false);
+        player.getAtaxxMove();
+        assertNull(player.ponderPosition());
+    }
+}
@@ -0,0 +1,75 @@
+package com.three.ataxx;
+
+import static com.three.ataxx.GameException.error;
+
+/** Measures how much faster an AIPlayer reaches a given depth with more
+ *  threads.  Usage:
+ *       java com.three.ataxx.Benchmark DEPTH THREADS...
+ *  For each THREADS, searches the same positions to DEPTH and prints
+ *  the total time to depth and the speedup over the first THREADS.
+ *  The speedup can only be as large as the number of free cores. */
+class Benchmark {
+
+    /** Moves leading to the positions searched. */
+    static final String[][] POSITIONS = {
+        { "a7-b6", "a1-b2", "g1-f2", "g7-f6" },
+        { "a7-a6", "g7-f7", "g1-e2", "a1-c3", "a6-c5", "f7-e6" },
+        { "a7-b7", "a1-b1", "g1-g2", "g7-f7", "b7-c6", "b1-c2",
+          "g2-e3", "f7-e5" },
+    };
+
+    /** Run the benchmark described above on ARGS. */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: Benchmark DEPTH THREADS...");
+            System.exit(1);
+        }
+        int depth = Integer.parseInt(args[0]);
+        timeToDepth(depth, Integer.parseInt(args[1])); // warm up the JIT
+        double baseline = 0;
+        for (int k = 1; k < args.length; k++) {
+            int threads = Integer.parseInt(args[k]);
+            double total = timeToDepth(depth, threads);
+            if (k == 1) {
+                baseline = total;
+            }
+            System.out.printf("threads %2d: %9.1f ms to depth %d,"
+                              + " speedup %.2f%n",
+                              threads, total, depth, baseline / total);
+        }
+    }
+
+    /** Return a new game in which MOVES have been made.  Throws
+     *  GameException if one of them is illegal, rather than skipping it
+     *  as Board.createMove does. */
+    static Game position(String... moves) {
+        Game game = new Game(null, (b) -> { }, new TextReporter());
+        Board board = game.getAtaxxBoard();
+        for (String move : moves) {
+            if (!board.moveLegal(Move.move(move))) {
+                throw error("illegal benchmark move %s after %d moves",
+                            move, board.moveNums());
+            }
+            board.createMove(move);
+        }
+        return game;
+    }
+
+    /** Return the total time in milliseconds that an AIPlayer with
+     *  THREADS threads and a fresh table takes to search each position
+     *  to DEPTH. */
+    private static double timeToDepth(int depth, int threads) {
+        double total = 0;
+        for (String[] moves : POSITIONS) {
+            Game game = position(moves);
+            AIPlayer player =
+                new AIPlayer(game, game.getAtaxxBoard().nextMove(), 0);
+            player.setThreads(threads);
+            player.setMaxDepth(depth);
+            player.setMoveTime(Long.MAX_VALUE / 2);
+            player.getAtaxxMove();
+            total += player.timeToDepth(depth);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,21 @@
+package com.three.ataxx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BenchmarkTest {
+
+    @Test
+    public void testPositionsAreLegal() {
+        for (String[] moves : Benchmark.POSITIONS) {
+            Board board = Benchmark.position(moves).getAtaxxBoard();
+            assertEquals(moves.length, board.moveNums());
+        }
+    }
+
+    @Test(expected = GameException.class)
+    public void testIllegalMove() {
+        Benchmark.position("a7-a6", "g7-f7", "b6-c5");
+    }
+}
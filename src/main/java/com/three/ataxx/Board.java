@@ -1,7 +1,7 @@
 package com.three.ataxx;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Random;
 import java.util.function.Consumer;
 
 import static com.three.ataxx.GameException.error;
@@ -32,7 +32,6 @@ class Board {
 
     /** A new, cleared board in the initial configuration. */
     Board() {
-        ataxxBoard = new PieceState[DEEPER_ONESIDE * DEEPER_ONESIDE];
         setNotifier(NOP);
         clear();
     }
@@ -40,13 +39,17 @@ class Board {
     /** A board whose initial contents are copied from BOARD0,
      *  but whose notifier does nothing. */
     Board(Board board0) {
-        ataxxBoard = board0.ataxxBoard.clone();
+        redBits = board0.redBits;
+        blueBits = board0.blueBits;
+        blockBits = board0.blockBits;
+        hashKey = board0.hashKey;
         nextMove = board0.nextMove();
-        totalMoves = new ArrayList<>();
-        colorNum = board0.colorNum.clone();
         consecJumpNum = board0.getConsecJumpNums();
         unblockedNum = board0.unblockedNum();
         winner = board0.winner;
+        squareWeights = board0.squareWeights;
+        redWeight = board0.redWeight;
+        blueWeight = board0.blueWeight;
         setNotifier(NOP);
     }
 
@@ -60,28 +63,17 @@ class Board {
      *  positions and no blocks. */
     void clear() {
         nextMove = RED;
-        totalMoves = new ArrayList<>();
+        undoTop = 0;
         unblockedNum = ONESIDE * ONESIDE;
         consecJumpNum = 0;
-        colorNum[RED.ordinal()] = 2;
-        colorNum[BLUE.ordinal()] = 2;
-        for (int i = 0; i < ataxxBoard.length; i++) {
-            if (i == DEEPER_ONESIDE * 2 + 8
-                    || i == DEEPER_ONESIDE * 8 + 2) {
-                setContent(i, RED);
-            } else if (i == DEEPER_ONESIDE * 8 + 8
-                    || i == DEEPER_ONESIDE * 2 + 2) {
-                setContent(i, BLUE);
-            } else if (i % DEEPER_ONESIDE == 0
-                    || i % DEEPER_ONESIDE == DEEPER_ONESIDE - 1
-                    || i < DEEPER_ONESIDE
-                    || i > DEEPER_ONESIDE * (DEEPER_ONESIDE - 1)) {
-                setContent(i, BLOCKED);
-            } else {
-                setContent(i, EMPTY);
-            }
-        }
-        winner = null;
+        redBits = blueBits = blockBits = 0;
+        hashKey = 0;
+        redWeight = blueWeight = 0;
+        setContent(index('a', '7'), RED);
+        setContent(index('g', '1'), RED);
+        setContent(index('a', '1'), BLUE);
+        setContent(index('g', '7'), BLUE);
+        updateWinner();
         announce();
     }
 
@@ -114,28 +106,69 @@ class Board {
     /** Return true iff player WHO could move, ignoring whether it is
      *  that player's move and whether the getAtaxxGame is over. */
     boolean couldMove(PieceState who) {
-        for (char r = '7'; r >= '1'; r--) {
-            for (char c = 'a'; c <= 'g'; c++) {
-                if (getContent(c, r) == who) {
-                    for (int i = -2; i <= 2; i++) {
-                        for (int j = -2; j <= 2; j++) {
-                            if (i != 0 || j != 0) {
-                                char c2 = (char) (c + i);
-                                char r2 = (char) (r + j);
-                                if (c2 >= 'a'
-                                        && c2 <= 'g'
-                                        && r2 >= '1'
-                                        && r2 <= '7'
-                                        && getContent(c2, r2) == EMPTY) {
-                                    return true;
-                                }
-                            }
-                        }
-                    }
-                }
+        return (reach(pieces(who)) & emptyBits()) != 0;
+    }
+
+    /** Clear MOVES and fill it with the legal moves of the side to move
+     *  (not including pass): all clone moves, then all jump moves.
+     *  Return the number of moves generated. */
+    int generateMoves(MoveList moves) {
+        moves.clear();
+        generateClones(moves);
+        generateJumps(moves);
+        return moves.size();
+    }
+
+    /** Append to MOVES the clone moves of the side to move.  Since all
+     *  clones into the same square have the same effect, only one is
+     *  generated for each empty square next to a piece of that side,
+     *  from the first such piece. */
+    void generateClones(MoveList moves) {
+        long own = pieces(nextMove);
+        for (long m = grow(own) & emptyBits(); m != 0; m &= m - 1) {
+            int to = Long.numberOfTrailingZeros(m);
+            moves.add(Move.code(Long.numberOfTrailingZeros(CLONE_RING[to] & own), to));
+        }
+    }
+
+    /** Append to MOVES the jump moves of the side to move. */
+    void generateJumps(MoveList moves) {
+        long empty = emptyBits();
+        for (long m = pieces(nextMove); m != 0; m &= m - 1) {
+            int from = Long.numberOfTrailingZeros(m);
+            for (long t = JUMP_RING[from] & empty; t != 0; t &= t - 1) {
+                moves.add(Move.code(from, Long.numberOfTrailingZeros(t)));
             }
         }
-        return false;
+    }
+
+    /** Return the number of opposing pieces that the move with packed
+     *  code CODE (not a pass) by the side to move would capture. */
+    int captures(int code) {
+        return Long.bitCount(CLONE_RING[Move.toSquare(code)]
+                             & pieces(nextMove.opposite()));
+    }
+
+    /** Return true iff the move with packed code CODE (not a pass) is a
+     *  clone rather than a jump. */
+    static boolean isClone(int code) {
+        return (CLONE_RING[Move.fromSquare(code)] & (1L << Move.toSquare(code))) != 0;
+    }
+
+    /** Return the mask of squares within 1 row and column of a square
+     *  in MASK (MASK included), computed with shifts rather than by
+     *  visiting the squares. */
+    static long grow(long mask) {
+        long row = (mask | ((mask << 1) & ~FILE_A) | ((mask >>> 1) & ~FILE_G))
+                & ALL_SQUARES;
+        return (row | (row << ONESIDE) | (row >>> ONESIDE)) & ALL_SQUARES;
+    }
+
+    /** Return the mask of squares within 2 rows and columns of a square
+     *  in MASK: every square a piece in MASK could clone or jump into,
+     *  were it empty. */
+    static long reach(long mask) {
+        return grow(grow(mask));
     }
 
     /** Assuming MOVE has the format "-" or "C0R0-C1R1", make the denoted
@@ -159,80 +192,141 @@ class Board {
         if (!moveLegal(move) || getWinner() != null) {
             return;
         }
-        if (move.isPass()) {
-            pass();
-            getWinner();
-            return;
-        }
-        totalMoves.add(move);
-        PieceState opponent = nextMove().opposite();
-        if (move.isJump()) {
-            setContent(move.fromIndex(), EMPTY);
-            setContent(move.toIndex(), nextMove());
-            convertColor(move, nextMove());
-            consecJumpNum++;
-        } else if (move.isClone()) {
-            setContent(move.toIndex(), nextMove());
-            convertColor(move, nextMove());
-            consecJumpNum = 0;
-            incrColorPieces(nextMove(), 1);
-        }
-        nextMove = opponent;
-        getWinner();
+        makeMove(move);
         announce();
     }
 
-    void undoMove() {
-        if (totalMoves.size() == 0) {
+    /** Make MOVE (possibly a pass) without checking its legality or
+     *  notifying anyone, recording enough to take it back with
+     *  unmakeMove().  This is the in-place path used by searches. */
+    void makeMove(Move move) {
+        makeMove(move.code());
+    }
+
+    /** Make the move with packed code CODE (see Move.code()), as for
+     *  makeMove(Move).  Moves from generateMoves() can be made this way
+     *  without looking up their Move objects. */
+    void makeMove(int code) {
+        PieceState self = nextMove;
+        long flipped = 0;
+        pushUndo(code);
+        if (code != Move.PASS_CODE) {
+            int from = Move.fromSquare(code);
+            int to = Move.toSquare(code);
+            long toBit = 1L << to;
+            long[] selfKeys = self == RED ? RED_KEYS : BLUE_KEYS;
+            hashKey ^= JUMP_KEYS[Math.min(consecJumpNum, CONSEC_JUMP_LIMIT)];
+            if ((CLONE_RING[from] & toBit) == 0) {
+                long fromBit = 1L << from;
+                if (self == RED) {
+                    redBits &= ~fromBit;
+                    redWeight -= squareWeights[from];
+                } else {
+                    blueBits &= ~fromBit;
+                    blueWeight -= squareWeights[from];
+                }
+                hashKey ^= selfKeys[from];
+                consecJumpNum++;
+            } else {
+                consecJumpNum = 0;
+            }
+            hashKey ^= JUMP_KEYS[Math.min(consecJumpNum, CONSEC_JUMP_LIMIT)] ^ selfKeys[to];
+            flipped = CLONE_RING[to] & pieces(self.opposite());
+            int gained = squareWeights[to], lost = 0;
+            for (long m = flipped; m != 0; m &= m - 1) {
+                int sq = Long.numberOfTrailingZeros(m);
+                hashKey ^= FLIP_KEYS[sq];
+                lost += squareWeights[sq];
+            }
+            if (self == RED) {
+                redBits |= toBit | flipped;
+                blueBits &= ~flipped;
+                redWeight += gained + lost;
+                blueWeight -= lost;
+            } else {
+                blueBits |= toBit | flipped;
+                redBits &= ~flipped;
+                blueWeight += gained + lost;
+                redWeight -= lost;
+            }
+        }
+        undoFlipped[undoTop - 1] = flipped;
+        nextMove = self.opposite();
+        hashKey ^= SIDE_KEY;
+        updateWinner();
+    }
+
+    /** Take back the last move made by makeMove() or createMove(),
+     *  including its captures, without notifying anyone.  Does nothing
+     *  if no move has been made since this board was created or
+     *  cleared. */
+    void unmakeMove() {
+        if (undoTop == 0) {
             return;
         }
-        Move lastMove = totalMoves.remove(totalMoves.size() - 1);
-        PieceState opponent = nextMove().opposite();
-        if (lastMove.isJump()) {
-            setContent(lastMove.toIndex(), EMPTY);
-            setContent(lastMove.fromIndex(), nextMove());
-            convertColor(lastMove, nextMove()); // 把颜色转换回来
-            consecJumpNum--;
-        } else if (lastMove.isClone()) {
-            setContent(lastMove.toIndex(), EMPTY);
-            consecJumpNum = 0;
-            incrColorPieces(nextMove(), -1);
+        undoTop -= 1;
+        int code = undoMoves[undoTop];
+        PieceState self = nextMove.opposite();
+        if (code != Move.PASS_CODE) {
+            int from = Move.fromSquare(code);
+            int to = Move.toSquare(code);
+            long flipped = undoFlipped[undoTop];
+            long toBit = 1L << to;
+            boolean jump = (CLONE_RING[from] & toBit) == 0;
+            long fromBit = jump ? 1L << from : 0;
+            int lost = 0;
+            for (long m = flipped; m != 0; m &= m - 1) {
+                lost += squareWeights[Long.numberOfTrailingZeros(m)];
+            }
+            int selfChange = squareWeights[to] + lost
+                - (jump ? squareWeights[from] : 0);
+            if (self == RED) {
+                redBits = (redBits & ~(toBit | flipped)) | fromBit;
+                blueBits |= flipped;
+                redWeight -= selfChange;
+                blueWeight += lost;
+            } else {
+                blueBits = (blueBits & ~(toBit | flipped)) | fromBit;
+                redBits |= flipped;
+                blueWeight -= selfChange;
+                redWeight += lost;
+            }
         }
-        nextMove = opponent;
-        getWinner();
+        consecJumpNum = undoConsecJumps[undoTop];
+        winner = undoWinners[undoTop];
+        hashKey = undoKeys[undoTop];
+        nextMove = self;
+    }
+
+    /** Take back the last move, as for unmakeMove(), and announce the
+     *  change. */
+    void undoMove() {
+        unmakeMove();
         announce();
     }
 
-    /** Changes the color of surrounding pieces within 1
-     *  by Move.
-     *  @param move The move that is used for converting
-     *             the color around its destination.
-     *  @param self The color of the player's piece. */
-    private void convertColor(Move move, PieceState self) {
-        convertColor(move.toIndex(), self);
-    }
-
-    /** Changes the color of surrounding pieces within 1
-     *  by index.
-     *  @param index The index that is used for converting
-     *             the color.
-     *  @param self The color of the player's piece. */
-    private void convertColor(int index, PieceState self) {
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                if (getContent(getNeighbor(index, i, j)) == self.opposite()) {
-                    setContent(getNeighbor(index, i, j), self);
-                    incrColorPieces(self, 1);
-                    incrColorPieces(self.opposite(), -1);
-                }
-            }
+    /** Record the move with code CODE and the parts of my state that it
+     *  may overwrite on the undo stack. */
+    private void pushUndo(int code) {
+        if (undoTop == undoMoves.length) {
+            int size = Math.max(INITIAL_UNDO_SIZE, 2 * undoTop);
+            undoMoves = Arrays.copyOf(undoMoves, size);
+            undoFlipped = Arrays.copyOf(undoFlipped, size);
+            undoConsecJumps = Arrays.copyOf(undoConsecJumps, size);
+            undoWinners = Arrays.copyOf(undoWinners, size);
+            undoKeys = Arrays.copyOf(undoKeys, size);
         }
+        undoMoves[undoTop] = code;
+        undoConsecJumps[undoTop] = consecJumpNum;
+        undoWinners[undoTop] = winner;
+        undoKeys[undoTop] = hashKey;
+        undoTop += 1;
     }
 
     /** Update to indicate that the current player passes, assuming it
      *  is legal to do so.  */
     void pass() {
-        nextMove = nextMove.opposite();
+        makeMove(Move.pass());
         announce();
     }
 
@@ -320,17 +414,24 @@ class Board {
         return toString(false);
     }
 
+    /** Two boards are equal iff they denote the same position: the
+     *  same contents, side to move and consecutive-jump count (that is,
+     *  everything covered by hashKey()). */
     @Override
     public boolean equals(Object obj) {
         if (!(obj instanceof Board other)) {
             return false;
         }
-        return Arrays.equals(ataxxBoard, other.ataxxBoard);
+        return hashKey == other.hashKey
+                && redBits == other.redBits && blueBits == other.blueBits
+                && blockBits == other.blockBits
+                && nextMove == other.nextMove
+                && consecJumpNum == other.consecJumpNum;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(ataxxBoard);
+        return Long.hashCode(hashKey);
     }
 
     /** Return a text depiction of the board.
@@ -382,6 +483,17 @@ class Board {
         return (row - '1' + 2) * DEEPER_ONESIDE + (col - 'a' + 2);
     }
 
+    /** Return the bit number (0 .. ONESIDE * ONESIDE - 1) of the square
+     *  with linearized index INDEX, or -1 if it lies in the border. */
+    static int square(int index) {
+        return SQUARE_OF_INDEX[index];
+    }
+
+    /** Return the linearized index of the square with bit number SQ. */
+    static int indexOf(int sq) {
+        return INDEX_OF_SQUARE[sq];
+    }
+
 
     // Final Project Part A.1.4 Getting the Winner
 
@@ -392,72 +504,195 @@ class Board {
      * @return EMPTY if the game is finished but there is not winner / a tie.
       */
     PieceState getWinner() {
-        // complete the code 
+        // The winner is kept up to date by updateWinner() whenever the
+        // position changes, so there is nothing to recompute here.
+
+        // Please do not change the return statement below
+        return winner;
+    }
+
+    /** Recompute the cached winner (see getWinner()) from the piece
+     *  counts, the consecutive-jump count and the mobility of both
+     *  sides, each of which takes O(1) on the bitboards.  Called once
+     *  after every change of the position. */
+    private void updateWinner() {
         // Hints: Consider using couldMove, getColorNums, getConsecJumpNums
         if ((couldMove(RED) || couldMove(BLUE)) && (getConsecJumpNums() < CONSEC_JUMP_LIMIT) && (getColorNums(RED) > 0 && getColorNums(BLUE) > 0)) { // if the game is not finished
-            return null;
+            winner = null;
         } else if (getColorNums(RED) > getColorNums(BLUE)) { // if red has more pieces
             winner = RED;
         } else if (getColorNums(RED) < getColorNums(BLUE)) { // if blue has more pieces
             winner = BLUE;
-        } else if (getColorNums(RED) == getColorNums(BLUE)) { // if red and blue have the same number of pieces
+        } else { // if red and blue have the same number of pieces
             winner = EMPTY;
         }
-
-//        if ((!couldMove(RED)&&!couldMove(BLUE))||getConsecJumpNums()>=CONSEC_JUMP_LIMIT){
-//            int r = getColorNums(RED);
-//            int b = getColorNums(BLUE);
-//            winner = r>b?RED:r==b?EMPTY:BLUE;
-//        }
-//        else if (getColorNums(RED)==0){
-//            winner = BLUE;
-//        }
-//        else if (getColorNums(BLUE)==0){
-//            winner = RED;
-//        }
-//        else{
-//            winner = null;
-//        }
-
-
-        // Please do not change the return statement below
-        return winner;
     }
 
 
-    /** Increment getColorNums(COLOR) by K. */
-    private void incrColorPieces(PieceState color, int k) {
-        colorNum[color.ordinal()] += k;
-    }
-
     /** The current contents of square CR, where 'a'-2 <= C <= 'g'+2, and
      *  '1'-2 <= R <= '7'+2.  Squares outside the range a1-g7 are all
      *  BLOCKED.  Returns the same value as getContent(index(C, R)). */
     PieceState getContent(char c, char r) {
-        return ataxxBoard[index(c, r)];
+        return getContent(index(c, r));
     }
 
     /** Return the current contents of square with linearized index SQ. */
     PieceState getContent(int sq) {
-        return ataxxBoard[sq];
+        int bitNum = square(sq);
+        if (bitNum < 0) {
+            return BLOCKED;
+        }
+        long bit = 1L << bitNum;
+        if ((redBits & bit) != 0) {
+            return RED;
+        } else if ((blueBits & bit) != 0) {
+            return BLUE;
+        } else if ((blockBits & bit) != 0) {
+            return BLOCKED;
+        }
+        return EMPTY;
     }
 
     /** Set square at C R to V.
      *  This is used for changing contents of the board. */
     public void setContent(char c, char r, PieceState v) {
-        ataxxBoard[index(c, r)] = v;
+        setContent(index(c, r), v);
+        updateWinner();
     }
 
     /** Set square at linearized index SQ to V.
-     * This is used for changing contents of the board. */
+     * This is used for changing contents of the board.  Border
+     * squares are always blocked, so setting them has no effect. */
     private void setContent(int sq, PieceState v) {
-        ataxxBoard[sq] = v;
+        int bitNum = square(sq);
+        if (bitNum < 0) {
+            return;
+        }
+        PieceState old = getContent(sq);
+        hashKey ^= squareKey(bitNum, old) ^ squareKey(bitNum, v);
+        addWeight(old, -squareWeights[bitNum]);
+        addWeight(v, squareWeights[bitNum]);
+        long bit = 1L << bitNum;
+        redBits &= ~bit;
+        blueBits &= ~bit;
+        blockBits &= ~bit;
+        switch (v) {
+            case RED -> redBits |= bit;
+            case BLUE -> blueBits |= bit;
+            case BLOCKED -> blockBits |= bit;
+            default -> {
+            }
+        }
+    }
+
+    /** Add WEIGHT to the positional sum of color V, if V is a color. */
+    private void addWeight(PieceState v, int weight) {
+        if (v == RED) {
+            redWeight += weight;
+        } else if (v == BLUE) {
+            blueWeight += weight;
+        }
+    }
+
+    /** Use WEIGHTS, indexed by bit number, as my table of square weights
+     *  (see CountWeightedScoreByColor), from now on and for the position
+     *  already on the board.  WEIGHTS is copied. */
+    void setSquareWeights(int[] weights) {
+        if (weights.length != ONESIDE * ONESIDE) {
+            throw new IllegalArgumentException("wrong number of weights");
+        }
+        squareWeights = weights.clone();
+        redWeight = weightOf(redBits);
+        blueWeight = weightOf(blueBits);
+    }
+
+    /** Return the sum of my square weights over the squares in MASK. */
+    private int weightOf(long mask) {
+        int sum = 0;
+        for (long m = mask; m != 0; m &= m - 1) {
+            sum += squareWeights[Long.numberOfTrailingZeros(m)];
+        }
+        return sum;
+    }
+
+    /** Return the number of empty squares that WHO could clone into. */
+    int mobility(PieceState who) {
+        return Long.bitCount(grow(pieces(who)) & emptyBits());
+    }
+
+    /** Return the number of pieces of WHO next to an empty square, which
+     *  the opponent might capture. */
+    int frontier(PieceState who) {
+        return Long.bitCount(pieces(who) & grow(emptyBits()));
+    }
+
+    /** Return the Zobrist key of contents V on the square with bit
+     *  number SQ (0 for EMPTY). */
+    private static long squareKey(int sq, PieceState v) {
+        return switch (v) {
+            case RED -> RED_KEYS[sq];
+            case BLUE -> BLUE_KEYS[sq];
+            case BLOCKED -> BLOCK_KEYS[sq];
+            default -> 0;
+        };
+    }
+
+    /** Return a compact key of this position (its contents and side
+     *  to move), suitable for keeping in maps and saved tables. */
+    BoardKey key() {
+        return new BoardKey(redBits, blueBits, blockBits, nextMove == BLUE);
+    }
+
+    /** Return the symmetry (see Symmetry) that takes this position to
+     *  its canonical form. */
+    int canonicalTransform() {
+        return Symmetry.canonicalTransform(redBits, blueBits, blockBits);
+    }
+
+    /** Return the key of the canonical form of this position, which is
+     *  the same for all positions related to it by a symmetry of the
+     *  board.  Moves in this position map to moves in the canonical
+     *  form by Symmetry.move(MOVE, canonicalTransform()). */
+    BoardKey canonicalKey() {
+        int t = canonicalTransform();
+        return new BoardKey(Symmetry.transform(redBits, t),
+                            Symmetry.transform(blueBits, t),
+                            Symmetry.transform(blockBits, t),
+                            nextMove == BLUE);
+    }
+
+    /** Return the 64-bit Zobrist key of this position: the contents of
+     *  all squares, the side to move and the number of consecutive
+     *  jumps.  It is maintained incrementally as the board changes, so
+     *  this costs O(1). */
+    long hashKey() {
+        return hashKey;
+    }
+
+    /** Return the mask of squares holding pieces of color WHO
+     *  (0 for EMPTY or BLOCKED). */
+    long pieces(PieceState who) {
+        return switch (who) {
+            case RED -> redBits;
+            case BLUE -> blueBits;
+            default -> 0;
+        };
+    }
+
+    /** Return the mask of blocked squares on the 7x7 board. */
+    long blockBits() {
+        return blockBits;
+    }
+
+    /** Return the mask of empty squares. */
+    long emptyBits() {
+        return ALL_SQUARES & ~(redBits | blueBits | blockBits);
     }
 
     /** Return total number of moves and passes since the last
      *  clear or the creation of the board. */
     int moveNums() {
-        return totalMoves.size();
+        return undoTop;
     }
 
     /** Return number of non-pass moves made in the current getAtaxxGame since the
@@ -478,7 +713,7 @@ class Board {
     int getColorNums(PieceState color) {
         // complete the code
         if (color!=RED&&color!=BLUE){return 0;}
-        return colorNum[color.ordinal()];
+        return Long.bitCount(pieces(color));
     }
 
     // Please do not change code of the following method.
@@ -493,21 +728,26 @@ class Board {
     /** Use notifier.accept(this) to announce changes to this board. */
     private Consumer<Board> notifier;
 
-    /** For reasons of efficiency in copying the board,
-     *  we use a 1D array to represent it, using the usual access
-     *  algorithm: row r, column c => index(r, c).
+    /** The position is kept as three bitboards over the 49 squares of
+     *  the real board: bit (r - '1') * 7 + (c - 'a') stands for the
+     *  square c r.  A square is empty iff its bit is set in none of them.
      *
-     *  Next, instead of using a 7x7 board, we use an 11x11 board in
-     *  which the outer two rows and columns are blocks, and
-     *  row 2, column 2 actually represents row 0, column 0
-     *  of the real board.  As a result of this trick, there is no
-     *  need to special-case being near the edge: we don't move
-     *  off the edge because it looks blocked.
-     *
-     *  Using characters as indices, it follows that if 'a' <= c <= 'g'
-     *  and '1' <= r <= '7', then row r, column c of the board corresponds
-     *  to ataxxBoard[(c -'a' + 2) + 11 (r - '1' + 2) ]. */
-    public PieceState[] ataxxBoard;
+     *  The 11x11 linearized indices (see index()) are still used at the
+     *  interface, so that the border trick remains available to callers:
+     *  squares in the border region are never stored and always read
+     *  as BLOCKED. */
+    private long redBits, blueBits, blockBits;
+
+    /** Zobrist key of the current position; see hashKey(). */
+    private long hashKey;
+
+    /** My square weights, by bit number (shared between copies, which
+     *  never change them in place; see setSquareWeights). */
+    private int[] squareWeights = DEFAULT_SQUARE_WEIGHTS;
+
+    /** Sums of squareWeights over the red and the blue pieces, kept up
+     *  to date as squares change. */
+    private int redWeight, blueWeight;
 
     /** Player that is next to move. */
     private PieceState nextMove;
@@ -519,16 +759,22 @@ class Board {
     /** Total number of unblocked squares. */
     private int unblockedNum = ONESIDE * ONESIDE;
 
-    /** Number of blue and red pieces, indexed by the ordinal positions of
-     *  enumerals BLUE and RED. */
-    private int[] colorNum = new int[BLUE.ordinal() + 1];
-
     /** Set to winner when getAtaxxGame ends (EMPTY if tie).  Otherwise, it is null. */
     private PieceState winner;
 
-    /** List of all moves since the last clear or beginning of
-     *  the getAtaxxGame. */
-    private ArrayList<Move> totalMoves;
+    /** The undo stack: all moves and passes since the last clear or the
+     *  creation of the board, the pieces each of them captured, and the
+     *  consecutive-jump count and winner just before each was made.
+     *  Entries 0 .. undoTop - 1 are in use. */
+    private int[] undoMoves = new int[0];
+    private long[] undoFlipped = new long[0];
+    private int[] undoConsecJumps = new int[0];
+    private PieceState[] undoWinners = new PieceState[0];
+    private long[] undoKeys = new long[0];
+    private int undoTop;
+
+    /** Size of the undo stack when first needed. */
+    private static final int INITIAL_UNDO_SIZE = 64;
 
     /** Number of squares on a side of the board. */
     static final int ONESIDE = Move.ONESIDE;
@@ -540,34 +786,114 @@ class Board {
     /** Number of consecutive non-cloning moves before getAtaxxGame ends. */
     static final int CONSEC_JUMP_LIMIT = 25;
 
-    int CountWeightedScoreByColor(PieceState color) {
-        // 棋盘为7*7，共49个位置
-        // 在棋盘正中间时，分数=1*2
-        // 在棋盘正中间边缘一圈时，分数=1*1.5
-        // 在棋盘正中间边缘两圈时，分数=1*1
-        // 在棋盘最边缘，分数=1*0.5
-        int score = 0;
-        int beginIndex = index('a', '1');
-        int endIndex = index('g', '7');
-        for (int i = beginIndex; i <= endIndex; i++) {
-            if (getContent(i) == color) { // 如果是自己的棋子
-                int row = i / DEEPER_ONESIDE; // 棋子的y坐标 因为row * 11 + col = index
-                int col = i % DEEPER_ONESIDE; // 棋子的x坐标
-                int min = Math.min(row, col); // 棋子到棋盘边缘的最小距离
-                int max = Math.max(row, col); // 棋子到棋盘边缘的最大距离
-                int distance = Math.min(min, ONESIDE - max - 1); // 最小值，或是距离另一侧更近的情况
-                if (distance == 0) {
-                    score += 0.5;
-                } else if (distance == 1) {
-                    score += 1;
-                } else if (distance == 2) {
-                    score += 1.5;
-                } else {
-                    score += 2;
+    /** Zobrist keys of a red piece, a blue piece and a block on each
+     *  bit number, and of a square changing between red and blue. */
+    private static final long[] RED_KEYS = new long[ONESIDE * ONESIDE],
+        BLUE_KEYS = new long[ONESIDE * ONESIDE],
+        BLOCK_KEYS = new long[ONESIDE * ONESIDE],
+        FLIP_KEYS = new long[ONESIDE * ONESIDE];
+
+    /** Zobrist keys of each consecutive-jump count (0 for none). */
+    private static final long[] JUMP_KEYS = new long[CONSEC_JUMP_LIMIT + 1];
+
+    /** Zobrist key included when BLUE is to move. */
+    private static final long SIDE_KEY;
+
+    static {
+        Random keys = new Random(0x41544158L);
+        for (int sq = 0; sq < ONESIDE * ONESIDE; sq += 1) {
+            RED_KEYS[sq] = keys.nextLong();
+            BLUE_KEYS[sq] = keys.nextLong();
+            BLOCK_KEYS[sq] = keys.nextLong();
+            FLIP_KEYS[sq] = RED_KEYS[sq] ^ BLUE_KEYS[sq];
+        }
+        for (int n = 1; n <= CONSEC_JUMP_LIMIT; n += 1) {
+            JUMP_KEYS[n] = keys.nextLong();
+        }
+        SIDE_KEY = keys.nextLong();
+    }
+
+    /** Default square weights: twice 0.5 on the edge, 1 one square in,
+     *  1.5 two squares in and 2 in the center, so that they are whole. */
+    static final int[] DEFAULT_SQUARE_WEIGHTS = new int[ONESIDE * ONESIDE];
+
+    static {
+        for (int sq = 0; sq < ONESIDE * ONESIDE; sq += 1) {
+            int r = sq / ONESIDE, c = sq % ONESIDE;
+            int distance = Math.min(Math.min(r, c),
+                                    Math.min(ONESIDE - 1 - r, ONESIDE - 1 - c));
+            DEFAULT_SQUARE_WEIGHTS[sq] = distance + 1;
+        }
+    }
+
+    /** Mask of all ONESIDE * ONESIDE squares. */
+    static final long ALL_SQUARES = (1L << (ONESIDE * ONESIDE)) - 1;
+
+    /** Masks of the leftmost ('a') and rightmost ('g') columns. */
+    private static final long FILE_A, FILE_G;
+
+    static {
+        long fileA = 0;
+        for (int r = 0; r < ONESIDE; r += 1) {
+            fileA |= 1L << (r * ONESIDE);
+        }
+        FILE_A = fileA;
+        FILE_G = fileA << (ONESIDE - 1);
+    }
+
+    /** Bit number of each linearized index, or -1 for border squares. */
+    private static final int[] SQUARE_OF_INDEX =
+        new int[DEEPER_ONESIDE * DEEPER_ONESIDE];
+
+    /** Linearized index of each bit number. */
+    private static final int[] INDEX_OF_SQUARE = new int[ONESIDE * ONESIDE];
+
+    /** For each bit number, the mask of squares at distance 1 (the
+     *  squares a piece there can clone into or capture). */
+    static final long[] CLONE_RING = new long[ONESIDE * ONESIDE];
+
+    /** For each bit number, the mask of squares at distance 2 (the
+     *  squares a piece there can jump into). */
+    static final long[] JUMP_RING = new long[ONESIDE * ONESIDE];
+
+    static {
+        Arrays.fill(SQUARE_OF_INDEX, -1);
+        for (int r = 0; r < ONESIDE; r += 1) {
+            for (int c = 0; c < ONESIDE; c += 1) {
+                int sq = r * ONESIDE + c;
+                int index = (r + 2) * DEEPER_ONESIDE + c + 2;
+                SQUARE_OF_INDEX[index] = sq;
+                INDEX_OF_SQUARE[sq] = index;
+                for (int dr = -2; dr <= 2; dr += 1) {
+                    for (int dc = -2; dc <= 2; dc += 1) {
+                        int r2 = r + dr, c2 = c + dc;
+                        if ((dr == 0 && dc == 0) || r2 < 0 || r2 >= ONESIDE
+                                || c2 < 0 || c2 >= ONESIDE) {
+                            continue;
+                        }
+                        long bit = 1L << (r2 * ONESIDE + c2);
+                        if (Math.abs(dr) <= 1 && Math.abs(dc) <= 1) {
+                            CLONE_RING[sq] |= bit;
+                        } else {
+                            JUMP_RING[sq] |= bit;
+                        }
+                    }
                 }
             }
         }
-        return score;
+    }
+
+    /** Return the positional score of COLOR: the sum of the square
+     *  weights (see setSquareWeights) of its pieces.  With the default
+     *  weights this is counted in half points, a piece being worth 0.5
+     *  on the edge up to 2 in the center.  It is
+     *  kept up to date as the board changes, so this costs O(1). */
+    int CountWeightedScoreByColor(PieceState color) {
+        return switch (color) {
+            case RED -> redWeight;
+            case BLUE -> blueWeight;
+            default -> 0;
+        };
     }
 
 
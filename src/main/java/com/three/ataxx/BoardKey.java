@@ -0,0 +1,67 @@
+package com.three.ataxx;
+
+import java.io.Serializable;
+
+/** A compact, immutable key for an Ataxx position, for use in maps and
+ *  caches (and in saved models) in place of strings built from the board.
+ *
+ *  The key is two longs.  Bit (r - '1') * 7 + (c - 'a') of the first is
+ *  set iff square c r holds a red piece or a block, and the same bit of
+ *  the second iff it holds a blue piece or a block; as no square can be
+ *  both red and blue, a square set in both is blocked.  The top bit of
+ *  the first long is set iff blue is to move. */
+final class BoardKey implements Serializable {
+
+    /** The key of a position with RED, BLUE and BLOCKED masks as for
+     *  Board.pieces and Board.blockBits, and BLUE to move iff BLUETOMOVE. */
+    BoardKey(long red, long blue, long blocked, boolean blueToMove) {
+        redBits = red | blocked | (blueToMove ? SIDE_BIT : 0);
+        blueBits = blue | blocked;
+    }
+
+    /** Return the mask of red pieces. */
+    long red() {
+        return redBits & ~blueBits & Board.ALL_SQUARES;
+    }
+
+    /** Return the mask of blue pieces. */
+    long blue() {
+        return blueBits & ~redBits;
+    }
+
+    /** Return the mask of blocks. */
+    long blocked() {
+        return redBits & blueBits;
+    }
+
+    /** Return true iff blue is to move. */
+    boolean blueToMove() {
+        return (redBits & SIDE_BIT) != 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof BoardKey other
+                && redBits == other.redBits && blueBits == other.blueBits;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = (redBits ^ (blueBits * 0x9E3779B97F4A7C15L)) * 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%013x/%013x%s", red(), blue(),
+                             blueToMove() ? "b" : "r");
+    }
+
+    /** Bit of redBits marking blue to move. */
+    private static final long SIDE_BIT = 1L << 63;
+
+    /** The packed masks; see the class comment. */
+    private final long redBits, blueBits;
+
+    private static final long serialVersionUID = 1L;
+}
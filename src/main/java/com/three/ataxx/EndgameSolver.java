@@ -0,0 +1,252 @@
+package com.three.ataxx;
+
+import java.util.ArrayList;
+
+import static com.three.ataxx.PieceState.*;
+import static com.three.ataxx.TranspositionTable.*;
+
+/** An exact solver for positions near the end of the game, which
+ *  searches every line to its end instead of to a fixed depth.
+ *
+ *  Values are final margins: the number of pieces of the side to move
+ *  less those of its opponent when the game ends, which has the sign of
+ *  the result.  In win/loss/draw mode only that sign is found, with a
+ *  null window around zero, which takes far fewer nodes.  A side with
+ *  no moves passes, and a game ends, as Board.getWinner has it, when
+ *  neither side can move, a side has no pieces left, or
+ *  Board.CONSEC_JUMP_LIMIT jumps have been made in a row.  Because jumps
+ *  do not fill squares, the last rule is what bounds the search; the
+ *  count of jumps is part of Board.hashKey(), so positions that differ
+ *  only in it are kept apart in the table.
+ *
+ *  The solver has its own transposition table, whose entries are exact
+ *  to the end of the game whatever their depth field, which is used
+ *  only to keep the results of large subtrees (it holds the number of
+ *  empty squares).  Before searching the moves at a node, it looks up
+ *  the position after each of them, in case one is already known to
+ *  cause a cut-off (enhanced transposition cut-offs).  Moves after the
+ *  first are searched with null windows, as in Searcher. */
+class EndgameSolver {
+
+    /** Default size of the solver's table, in megabytes. */
+    static final int DEFAULT_HASH_SIZE = 8;
+
+    /** Number of nodes visited between checks of the clock. */
+    private static final int CHECK_INTERVAL = 4096;
+
+    /** A magnitude greater than any margin. */
+    private static final int INFINITY = 1000;
+
+    /** Ordering scores: the table's move first, then clones before
+     *  jumps, then by captures. */
+    private static final int TABLE_MOVE_SCORE = 1000, CLONE_SCORE = 100;
+
+    /** A solver with a table of about MEGABYTES megabytes. */
+    EndgameSolver(int megabytes) {
+        table = new TranspositionTable(megabytes);
+    }
+
+    /** Solve BOARD, whose side to move must have a move other than pass,
+     *  within MILLIS milliseconds, finding the exact margin if EXACT and
+     *  only whether it is a win, loss or draw if not.  Return true if it
+     *  was solved, in which case bestMove() and value() give the result.
+     *  BOARD is searched in place and restored. */
+    boolean solve(Board board, long millis, boolean exact) {
+        deadline = System.currentTimeMillis() + millis;
+        stopped = false;
+        nodes = 0;
+        table.newSearch();
+        MoveList moves = moveList(0);
+        board.generateMoves(moves);
+        int[] scores = scoreList(0);
+        scoreMoves(board, moves, scores, -1);
+        int alpha = exact ? -INFINITY : -1, beta = exact ? INFINITY : 1;
+        int bestValue = -INFINITY;
+        for (int k = 0; k < moves.size(); k++) {
+            int move = pickMove(moves, scores, k);
+            board.makeMove(move);
+            int value = -solve(board, 1, -beta, -alpha);
+            board.unmakeMove();
+            if (stopped) {
+                return false;
+            }
+            if (value > bestValue) {
+                bestValue = value;
+                bestMove = Move.move(move);
+            }
+            alpha = Math.max(alpha, value);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        this.value = bestValue;
+        return true;
+    }
+
+    /** Return the best move found by the last successful solve. */
+    Move bestMove() {
+        return bestMove;
+    }
+
+    /** Return the value of the best move found by the last successful
+     *  solve: its final margin, or in win/loss/draw mode, a number with
+     *  the sign of the result. */
+    int value() {
+        return value;
+    }
+
+    /** Return the number of nodes visited by the last solve. */
+    long nodes() {
+        return nodes;
+    }
+
+    /** Return the value of BOARD, PLY moves from the root, as a final
+     *  margin for the side to move, within the window (ALPHA, BETA): the
+     *  result is at most ALPHA if the value is, and at least BETA if the
+     *  value is.  The result is meaningless if time runs out. */
+    private int solve(Board board, int ply, int alpha, int beta) {
+        if (board.getWinner() != null) {
+            return margin(board);
+        }
+        if (++nodes % CHECK_INTERVAL == 0
+                && System.currentTimeMillis() >= deadline) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        long key = board.hashKey();
+        long entry = table.probe(key);
+        if (entry != MISS) {
+            int score = score(entry);
+            int bound = bound(entry);
+            if (bound == EXACT
+                    || (bound == LOWER && score >= beta)
+                    || (bound == UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+        MoveList moves = moveList(ply);
+        if (board.generateMoves(moves) == 0) { // no moves: pass
+            board.makeMove(Move.PASS_CODE);
+            int value = -solve(board, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            return value;
+        }
+        for (int k = 0; k < moves.size(); k++) { // enhanced transposition cut-offs
+            board.makeMove(moves.get(k));
+            long child = table.probe(board.hashKey());
+            board.unmakeMove();
+            if (child != MISS && bound(child) != LOWER
+                    && -score(child) >= beta) {
+                return -score(child);
+            }
+        }
+        int[] scores = scoreList(ply);
+        scoreMoves(board, moves, scores,
+                   entry != MISS && moveId(entry) != NO_MOVE
+                   ? Move.codeOf(moveId(entry)) : -1);
+        int alpha0 = alpha;
+        int bestValue = -INFINITY, bestCode = -1;
+        for (int k = 0; k < moves.size(); k++) {
+            int move = pickMove(moves, scores, k);
+            board.makeMove(move);
+            int value;
+            if (k == 0 || beta - alpha == 1) {
+                value = -solve(board, ply + 1, -beta, -alpha);
+            } else { // principal variation search
+                value = -solve(board, ply + 1, -alpha - 1, -alpha);
+                if (value > alpha && value < beta) {
+                    value = -solve(board, ply + 1, -beta, -alpha);
+                }
+            }
+            board.unmakeMove();
+            if (value > bestValue) {
+                bestValue = value;
+                bestCode = move;
+            }
+            alpha = Math.max(alpha, value);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        if (!stopped) {
+            int bound = bestValue <= alpha0 ? UPPER
+                : bestValue >= beta ? LOWER : EXACT;
+            table.store(key, Long.bitCount(board.emptyBits()), bound,
+                        bestValue, Move.id(bestCode));
+        }
+        return bestValue;
+    }
+
+    /** Return the final margin of BOARD, whose game is over, for the
+     *  side to move. */
+    private static int margin(Board board) {
+        int margin = board.getColorNums(RED) - board.getColorNums(BLUE);
+        return board.nextMove() == RED ? margin : -margin;
+    }
+
+    /** Set SCORES[k] to the ordering score of the Kth move in MOVES, for
+     *  BOARD, where TABLECODE is the code of the table's move, or -1. */
+    private static void scoreMoves(Board board, MoveList moves, int[] scores,
+                                   int tableCode) {
+        for (int k = 0; k < moves.size(); k++) {
+            int code = moves.get(k);
+            scores[k] = code == tableCode ? TABLE_MOVE_SCORE
+                : (Board.isClone(code) ? CLONE_SCORE : 0) + board.captures(code);
+        }
+    }
+
+    /** Move the highest-scoring of moves K and on in MOVES to place K,
+     *  keeping SCORES parallel, and return its code. */
+    private static int pickMove(MoveList moves, int[] scores, int k) {
+        int best = k;
+        for (int j = k + 1; j < moves.size(); j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        if (best != k) {
+            moves.swap(k, best);
+            int score = scores[k];
+            scores[k] = scores[best];
+            scores[best] = score;
+        }
+        return moves.get(k);
+    }
+
+    /** Return the move list for ply PLY, creating it if need be.  Lines
+     *  of jumps make the depth of a solve hard to bound in advance. */
+    private MoveList moveList(int ply) {
+        while (moveLists.size() <= ply) {
+            moveLists.add(new MoveList());
+        }
+        return moveLists.get(ply);
+    }
+
+    /** Return ordering scratch space for ply PLY. */
+    private int[] scoreList(int ply) {
+        while (moveScores.size() <= ply) {
+            moveScores.add(new int[MoveList.MAX_MOVES]);
+        }
+        return moveScores.get(ply);
+    }
+
+    /** My transposition table. */
+    private final TranspositionTable table;
+    /** Move lists, by ply. */
+    private final ArrayList<MoveList> moveLists = new ArrayList<>();
+    /** Ordering scores of the moves in moveLists. */
+    private final ArrayList<int[]> moveScores = new ArrayList<>();
+    /** Time (as for System.currentTimeMillis) at which the current solve
+     *  must stop. */
+    private long deadline;
+    /** True iff the current solve has run out of time. */
+    private boolean stopped;
+    /** Nodes visited by the current solve. */
+    private long nodes;
+    /** The best move found by the last successful solve. */
+    private Move bestMove;
+    /** Its value. */
+    private int value;
+}
@@ -0,0 +1,62 @@
+package com.three.ataxx;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EndgameSolverTest {
+
+    /** A position from a random game played from the start, mostly by
+     *  clones, until at most EMPTIES squares are empty, or null if the
+     *  game ends first or the side to move must pass. */
+    private static Board nearEnd(long seed, int empties) {
+        Board b = new Board();
+        Random random = new Random(seed);
+        MoveList moves = new MoveList();
+        while (b.getWinner() == null
+               && Long.bitCount(b.emptyBits()) > empties) {
+            if (b.generateMoves(moves) == 0) {
+                b.makeMove(Move.PASS_CODE);
+                continue;
+            }
+            int code = moves.get(random.nextInt(moves.size()));
+            if (Board.isClone(code) || random.nextInt(4) == 0) {
+                b.makeMove(code);
+            }
+        }
+        if (b.getWinner() != null || b.generateMoves(moves) == 0) {
+            return null;
+        }
+        return b;
+    }
+
+    @Test
+    public void testWinLossDrawAgreesWithExact() {
+        EndgameSolver solver = new EndgameSolver(4);
+        int solved = 0;
+        for (long seed = 0; seed < 12; seed++) {
+            Board b = nearEnd(seed, 1);
+            if (b == null) {
+                continue;
+            }
+            Board copy = new Board(b);
+            assertTrue(solver.solve(b, 10000, false));
+            assertEquals(copy, b);
+            int sign = Integer.signum(solver.value());
+            if (!solver.solve(b, 2000, true)) {
+                continue;
+            }
+            solved += 1;
+            assertEquals(sign, Integer.signum(solver.value()));
+            int value = solver.value();
+            b.makeMove(solver.bestMove());
+            if (b.getWinner() == null && b.generateMoves(new MoveList()) > 0) {
+                assertTrue(solver.solve(b, 10000, true));
+                assertEquals(-value, solver.value());
+            }
+        }
+        assertTrue(solved > 0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.three.ataxx;
+
+import java.util.Arrays;
+
+/** A small direct-mapped cache of static evaluations, indexed by
+ *  Board.hashKey(), so that leaf positions met again (in the next
+ *  iteration of a search, or under another move order) need not be
+ *  evaluated again.
+ *
+ *  Each slot is a single long: the upper half of the position's hash key
+ *  and its score in the lower half.  The slot is chosen by the lower
+ *  bits of the key, so a hit checks all of those bits and the upper 32.
+ *  A new entry simply replaces whatever was in its slot.  A cache is
+ *  meant for the use of one thread. */
+class EvalCache {
+
+    /** Default number of slots, a power of two. */
+    static final int DEFAULT_SIZE = 1 << 12;
+
+    /** A cache of at least one and about SIZE slots (the largest power
+     *  of two that is at most SIZE). */
+    EvalCache(int size) {
+        slots = new long[Integer.highestOneBit(Math.max(1, size))];
+        mask = slots.length - 1;
+        clear();
+    }
+
+    /** Return the cached score of the position with hash key KEY, or
+     *  compute it as staticScore(BOARD), BOARD being that position, and
+     *  cache it. */
+    int score(Board board, long key) {
+        int slot = (int) key & mask;
+        long entry = slots[slot];
+        if ((entry & KEY_MASK) == (key & KEY_MASK) && entry != EMPTY) {
+            hits += 1;
+            return (int) entry;
+        }
+        misses += 1;
+        int score = Searcher.staticScore(board);
+        slots[slot] = (key & KEY_MASK) | (score & 0xffffffffL);
+        return score;
+    }
+
+    /** Return the number of lookups that found their position. */
+    long hits() {
+        return hits;
+    }
+
+    /** Return the number of lookups that did not. */
+    long misses() {
+        return misses;
+    }
+
+    /** Return the number of slots in me. */
+    int capacity() {
+        return slots.length;
+    }
+
+    /** Remove all entries and reset my counters. */
+    void clear() {
+        Arrays.fill(slots, EMPTY);
+        hits = misses = 0;
+    }
+
+    /** The part of an entry holding (part of) the key. */
+    private static final long KEY_MASK = 0xffffffff00000000L;
+
+    /** A slot holding nothing, whose score, Integer.MIN_VALUE, is never
+     *  that of a position. */
+    private static final long EMPTY = 0x8000000080000000L;
+
+    /** The entries. */
+    private final long[] slots;
+    /** Number of slots less one. */
+    private final int mask;
+    /** Lookup counts since I was created or cleared. */
+    private long hits, misses;
+}
@@ -0,0 +1,38 @@
+package com.three.ataxx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class EvalCacheTest {
+
+    @Test
+    public void testHitsAndMisses() {
+        EvalCache cache = new EvalCache(1000);
+        assertEquals(512, cache.capacity());
+        Board b = new Board();
+        b.createMove("a7-b6");
+        int score = Searcher.staticScore(b);
+        assertEquals(score, cache.score(b, b.hashKey()));
+        assertEquals(score, cache.score(b, b.hashKey()));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        cache.clear();
+        assertEquals(0, cache.hits());
+        assertEquals(score, cache.score(b, b.hashKey()));
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void testCollision() {
+        EvalCache cache = new EvalCache(16);
+        Board b1 = new Board(), b2 = new Board();
+        b1.createMove("a7-b6");
+        b2.createMove("a7-c5");
+        long key1 = 3L, key2 = 3L + (1L << 40); // same slot
+        cache.score(b1, key1);
+        assertEquals(Searcher.staticScore(b2), cache.score(b2, key2));
+        assertEquals(Searcher.staticScore(b1), cache.score(b1, key1));
+        assertEquals(0, cache.hits());
+    }
+}
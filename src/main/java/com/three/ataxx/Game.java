@@ -53,12 +53,14 @@ class Game {
                 }
             } else if (!gameNotOver()) {
                 if (!winnerAnnounced) {
+                    stopPlayers();
                     reporter.announceWinner(ataxxBoard.getWinner());
                     winnerAnnounced = true;
                 }
                 runCommand(getCommand("-> "));
             }
         }
+        stopPlayers();
         return exit;
     }
 
@@ -104,6 +106,17 @@ class Game {
         reporter.announceMove(move, player);
     }
 
+    /** Send the statistics of each search by an automated player to
+     *  LISTENER from now on. */
+    void setStatsListener(StatsListener listener) {
+        statsListener = listener;
+    }
+
+    /** Report that the search for a move by PLAYER had statistics STATS. */
+    void reportStats(SearchStats stats, PieceState player) {
+        statsListener.searchDone(player, stats);
+    }
+
     /** Make the player of COLOR an AIPlayer for subsequent moves. */
     private void setAI(PieceState color) {
         setAtaxxPlayer(color, new AIPlayer(this, color, seed));
@@ -121,13 +134,28 @@ class Game {
         return ataxxPlayers[color.ordinal()];
     }
 
-    /** Set getAtaxxPlayer(COLOR) to PLAYER. */
+    /** Set getAtaxxPlayer(COLOR) to PLAYER, stopping the player it
+     *  replaces. */
     private void setAtaxxPlayer(PieceState color, Player player) {
+        Player old = ataxxPlayers[color.ordinal()];
+        if (old != null) {
+            old.stop();
+        }
         ataxxPlayers[color.ordinal()] = player;
     }
 
+    /** Stop the background work of all players (see Player.stop). */
+    private void stopPlayers() {
+        for (Player player : ataxxPlayers) {
+            if (player != null) {
+                player.stop();
+            }
+        }
+    }
+
     /** Clear the board to its initial state. */
     void clear() {
+        stopPlayers();
         ataxxBoard.clear();
     }
 
@@ -198,6 +226,9 @@ class Game {
     /** Outlet for responses to the user. */
     private final Reporter reporter;
 
+    /** Receiver of search statistics; by default it ignores them. */
+    private StatsListener statsListener = (player, stats) -> { };
+
     /** The board on which I record all moves. */
     private final Board ataxxBoard;
 
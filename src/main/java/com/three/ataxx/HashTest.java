@@ -0,0 +1,70 @@
+package com.three.ataxx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class HashTest {
+
+    private static void createMoves(Board b, String[] moves) {
+        for (String s : moves) {
+            b.createMove(s.charAt(0), s.charAt(1),
+                    s.charAt(3), s.charAt(4));
+        }
+    }
+
+    @Test
+    public void testTransposition() {
+        Board b1 = new Board();
+        createMoves(b1, new String[] {"a7-a6", "a1-a2", "g1-g2", "g7-g6"});
+        Board b2 = new Board();
+        createMoves(b2, new String[] {"g1-g2", "g7-g6", "a7-a6", "a1-a2"});
+        assertEquals(b1.hashKey(), b2.hashKey());
+        assertEquals(b1, b2);
+    }
+
+    @Test
+    public void testSideAndJumps() {
+        Board b1 = new Board();
+        createMoves(b1, new String[] {"a7-a6", "a1-a2"});
+        Board b2 = new Board(b1);
+        b2.pass();
+        assertNotEquals(b1.hashKey(), b2.hashKey());
+        Board b3 = new Board();
+        createMoves(b3, new String[] {"a7-c7", "a1-c1", "c7-a7", "c1-a1"});
+        assertEquals(new Board().toString(), b3.toString());
+        assertNotEquals(new Board().hashKey(), b3.hashKey());
+    }
+
+    @Test
+    public void testUndoRestoresKey() {
+        Board b = new Board();
+        b.setBlock('c', '3');
+        long start = b.hashKey();
+        createMoves(b, new String[] {"a7-b6", "a1-a3", "b6-b5", "g7-f7", "b5-b4"});
+        for (int i = 0; i < 5; i++) {
+            b.undoMove();
+        }
+        assertEquals(start, b.hashKey());
+        assertEquals(new Board(b).hashKey(), b.hashKey());
+    }
+
+    @Test
+    public void testBoardKey() {
+        Board b1 = new Board();
+        b1.setBlock('c', '3');
+        createMoves(b1, new String[] {"a7-a6", "a1-a2", "g1-g2", "g7-g6"});
+        Board b2 = new Board();
+        b2.setBlock('c', '3');
+        createMoves(b2, new String[] {"g1-g2", "g7-g6", "a7-a6", "a1-a2"});
+        assertEquals(b1.key(), b2.key());
+        assertEquals(b1.key().hashCode(), b2.key().hashCode());
+        assertEquals(b1.pieces(PieceState.RED), b1.key().red());
+        assertEquals(b1.pieces(PieceState.BLUE), b1.key().blue());
+        assertEquals(b1.blockBits(), b1.key().blocked());
+        b2.pass();
+        assertNotEquals(b1.key(), b2.key());
+    }
+
+}
@@ -1,12 +1,68 @@
 package com.three.ataxx;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class MCTSPlayer extends Player {
-    private static final int MAX_ITERATIONS = 1000;
+
+    /** Default time budget for one move, in milliseconds. */
+    static final long DEFAULT_MOVE_TIME = 1000;
+
+    /** Number of playouts a worker makes between looks at the clock. */
+    private static final int CHECK_INTERVAL = 16;
+
+    /** Playout rate assumed before the first search has measured one,
+     *  per second. */
+    private static final double INITIAL_PLAYOUT_RATE = 10000;
+
+    /** Most nodes reserved in the pool for one search (about 80 MB). */
+    static final int MAX_RESERVED_NODES = 1 << 22;
+
+    /** Initial capacity of the node pool; it grows when needed. */
+    private static final int INITIAL_NODES = 1 << 16;
+
+    /** Nodes reserved in the pool before a search, per playout: more than
+     *  the usual number of moves in a position, so that the pool rarely
+     *  fills up during a search (when it does, leaves stop being
+     *  expanded until the next search). */
+    private static final int NODES_PER_PLAYOUT = 128;
+
     private Move lastFoundMove;
 
+    /** The statistics of the search that found lastFoundMove. */
+    private SearchStats lastStats;
+
+    /** The search tree, rooted at the position being searched, and kept
+     *  from one move to the next (see reuseTree). */
+    private final NodePool tree = new NodePool(INITIAL_NODES);
+
+    /** The root position of tree, or null. */
+    private Board treePosition;
+
+    /** Playouts carried over from the previous search by the last
+     *  search. */
+    private int reusedPlayouts;
+
+    /** One worker for each thread I search with; the first runs in the
+     *  thread that calls findMove. */
+    private Worker[] workers;
+
+    /** Time budget for one move, in milliseconds, or 0 for none. */
+    private long moveTime = DEFAULT_MOVE_TIME;
+
+    /** Playout budget for one move, or 0 for none. */
+    private int playoutLimit;
+
+    /** Playouts per second in the last search. */
+    private double playoutRate = INITIAL_PLAYOUT_RATE;
+
+    /** The source of my workers' random number generators. */
+    private final SplittableRandom random;
+
+    /** Set to stop the current search (see stop). */
+    private volatile AtomicBoolean stopFlag = new AtomicBoolean();
+
     /**
      * Constructor for MCTSPlayer
      * @param game The game
@@ -15,6 +71,57 @@ class MCTSPlayer extends Player {
      */
     MCTSPlayer(Game game, PieceState myColor, long seed) {
         super(game, myColor);
+        random = new SplittableRandom(seed);
+        setThreads(1);
+    }
+
+    /**
+     * Search with THREADS threads, all descending the same tree at once (tree parallelization).
+     * A thread on its way down counts a visit to each node it passes before its playout is over,
+     * as if it had lost (a "virtual loss"), so that the others tend to choose other paths.
+     * @param threads The number of threads, at least 1
+     */
+    void setThreads(int threads) {
+        workers = new Worker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(random.split());
+        }
+    }
+
+    /**
+     * Set the time budget for each of my moves.  The search stops at whichever of this and the playout
+     * budget (see setPlayouts) runs out first; 0 means no limit.
+     * @param millis The budget in milliseconds, or 0
+     */
+    void setMoveTime(long millis) {
+        moveTime = millis;
+    }
+
+    /**
+     * Set the number of playouts for each of my moves, as for setMoveTime.  A budget of playouts alone
+     * makes my moves independent of the machine's speed and load.
+     * @param playouts The number of playouts, or 0
+     */
+    void setPlayouts(int playouts) {
+        playoutLimit = playouts;
+    }
+
+    /**
+     * Stop my current search, if any, as soon as possible (see Player.stop); it then returns the best
+     * move found so far, and I may still be asked for moves afterwards.  This may be called from
+     * another thread.
+     */
+    @Override
+    void stop() {
+        stopFlag.set(true);
+    }
+
+    /**
+     * Return the statistics of my last search for a move, or null.
+     * @return The statistics
+     */
+    SearchStats stats() {
+        return lastStats;
     }
 
     /**
@@ -33,149 +140,341 @@ class MCTSPlayer extends Player {
     @Override
     String getAtaxxMove() {
         Move move = findMove();
+        getAtaxxGame().reportStats(lastStats, getMyState());
         getAtaxxGame().reportMove(move, getMyState());
         return move.toString();
     }
 
     /**
-     * Do a specified number of MCTS iterations (can be based on time, but here we simplify with a fixed number of iterations),
+     * Do MCTS iterations until my time or playout budget runs out, or until stop is called (the search
+     * is anytime: it has a best move at every point after its first playout).
      * Then the move of the child node with the most visits is selected as the best move.
      * @return The best move
      */
     private Move findMove() {
-        Node root = new Node(getAtaxxGame().getAtaxxBoard(), null, null, getMyState());
+        long start = System.nanoTime();
+        Board board = new Board(getAtaxxGame().getAtaxxBoard());
+        reuseTree(board);
+        tree.reserve(nodesToReserve());
 
-        for (int i = 0; i < MAX_ITERATIONS; i++) {
-            runMCTS(root);
+        AtomicBoolean stop = new AtomicBoolean();
+        stopFlag = stop;
+        long deadline = start + moveTime * 1000000;
+        AtomicInteger playouts = new AtomicInteger();
+        Thread[] helpers = new Thread[workers.length - 1];
+        for (int i = 1; i < workers.length; i++) {
+            Worker worker = workers[i];
+            worker.start(board);
+            helpers[i - 1] = new Thread(() -> worker.run(playouts, deadline, stop));
+            helpers[i - 1].setDaemon(true);
+            helpers[i - 1].start();
+        }
+        workers[0].start(board);
+        workers[0].run(playouts, deadline, stop);
+        stop.set(true);
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException excp) {
+                Thread.currentThread().interrupt();
+            }
         }
 
-        Node bestChild = root.bestChild();
-        lastFoundMove = bestChild.getMove();
+        int bestChild = mostVisitedChild(NodePool.ROOT);
+        lastFoundMove = bestChild < 0 ? Move.pass()
+            : Move.byId(tree.moveId(bestChild));
+        lastStats = new SearchStats("mcts");
+        int maxDepth = 0;
+        for (Worker worker : workers) {
+            lastStats.add(0, 0, 0, 0, 0, worker.playouts);
+            maxDepth = Math.max(maxDepth, worker.maxDepth);
+        }
+        lastStats.add(tree.size(), 0, 0, 0, 0, 0);
+        lastStats.finish(maxDepth, System.nanoTime() - start);
+        if (lastStats.playoutsPerSecond() > 0) {
+            playoutRate = lastStats.playoutsPerSecond();
+        }
+        treePosition = board;
         return lastFoundMove;
     }
 
-    /***
-     * Perform the four phases of MCTS: selection, extension, simulation, and back propagation.
-     * In the selection phase, we select the incomplete child node with the largest UCT value.
-     * In the extension phase, we extend the selected node to generate a new child node.
-     * In the simulation phase, we randomly simulate the game until the end, and then we get the simulation results.
-     * In the back propagation phase, we will update the number of node visits and victories according to the simulation results.
-     * @param root The root node
+    /**
+     * Return the number of nodes to reserve in the tree before my next search: NODES_PER_PLAYOUT for
+     * each playout it is expected to make, but at most MAX_RESERVED_NODES, as when it has no budget.
+     * @return The number of nodes
      */
-    private void runMCTS(Node root) {
-        // Select
-        Node node = select(root);
-
-        // Expand
-        assert node != null;
-        if (node.getState().getWinner() == null) {
-            expand(node);
-        }
+    int nodesToReserve() {
+        return (int) Math.min(expectedPlayouts(), MAX_RESERVED_NODES / NODES_PER_PLAYOUT)
+            * NODES_PER_PLAYOUT;
+    }
 
-        // Simulate
-        PieceState result = simulate(node);
+    /**
+     * Return the number of playouts my next search is expected to make, from my budgets and the rate
+     * of the last search.
+     * @return The number of playouts expected
+     */
+    private long expectedPlayouts() {
+        long byTime = moveTime > 0 ? (long) (playoutRate * moveTime / 1000) + 1
+            : Long.MAX_VALUE;
+        return playoutLimit > 0 ? Math.min(playoutLimit, byTime) : byTime;
+    }
 
-        // Backpropagation
-        backpropagate(node, result);
+    /**
+     * Return the number of playouts my last search started with, carried over from the search before.
+     * @return The number of playouts reused
+     */
+    int reusedPlayouts() {
+        return reusedPlayouts;
     }
 
-    /***
-     * In the selection phase, we need to use a strategy to select a node that is not fully extended or has no child nodes,
-     * starting with the root node.
-     * Here, we use the Upper Confidence Bound 1 applied to Trees (UCT) strategy.
-     * The UCT policy selects the child node with the largest UCT value, which is calculated by the node's win rate and access times.
-     * @param node The node
-     * @return The selected node
+    /**
+     * Make the tree's root BOARD, the current position.  If BOARD follows from the old root by my last
+     * move and a reply to it that are both in the tree, keep the subtree below them with its visits
+     * and wins, and drop the rest; otherwise start over.
+     * @param board The current position
      */
-    private Node select(Node node) {
-        // 如果节点没有子节点，直接返回该节点
-        if (node.getChildren().isEmpty()) {
-            return node;
+    private void reuseTree(Board board) {
+        int node = treePosition == null ? -1 : findGrandchild(board);
+        if (node < 0) {
+            tree.clear();
+        } else {
+            tree.reroot(node);
         }
+        reusedPlayouts = tree.visits(NodePool.ROOT);
+    }
 
-        Node selected = null;
-        double bestValue = Double.MIN_VALUE;
-        for (Node child : node.getChildren()) {
-            if (child.getVisits() == 0) {
-                return child;
-            }
-            double uctValue = child.getWins() / (double) child.getVisits()
-                    + Math.sqrt(2 * Math.log(node.getVisits()) / (double) child.getVisits());
-            if (uctValue > bestValue) {
-                bestValue = uctValue;
-                selected = child;
+    /**
+     * Return the grandchild of the tree's root, through the child for my last move, whose position is
+     * BOARD, or -1 if there is none.
+     * @param board The current position
+     * @return The grandchild, or -1
+     */
+    private int findGrandchild(Board board) {
+        int moveId = Move.id(lastFoundMove.code());
+        int child = -1;
+        int first = tree.firstChild(NodePool.ROOT);
+        for (int c = first; c < first + childCount(NodePool.ROOT); c++) {
+            if (tree.moveId(c) == moveId) {
+                child = c;
             }
         }
-
-        // 如果所有子节点的访问次数都是 0，返回一个随机的子节点
-        if (selected == null) {
-            selected = node.getChildren().get(new Random().nextInt(node.getChildren().size()));
+        if (child < 0) {
+            return -1;
         }
-
-        return selected;
+        treePosition.makeMove(lastFoundMove);
+        int found = -1;
+        first = tree.firstChild(child);
+        for (int g = first; g < first + childCount(child) && found < 0; g++) {
+            treePosition.makeMove(Move.codeOf(tree.moveId(g)));
+            if (treePosition.equals(board)) {
+                found = g;
+            }
+            treePosition.unmakeMove();
+        }
+        treePosition.unmakeMove();
+        return found;
     }
 
-
-    /***
-     * In the extension phase, we add a new child node on the selected node. The new child node represents a legal and unattempted move.
+    /**
+     * Return the number of children of NODE (0 if it has none yet).
      * @param node The node
+     * @return The number of children
      */
-    private void expand(Node node) {
-        ArrayList<Move> possibleMoves = node.possibleMoves(node.getState(),node.getState().nextMove());
-        // 如果所有可能的移动都已经被尝试过，就什么都不做，否则会陷入死循环
-        if (possibleMoves.isEmpty()) {
-            return;
-        }
-        for (Move move : possibleMoves) {
-            if (!node.hasChildWithMove(move)) { // 如果该节点没有该移动的子节点，就添加一个新的子节点
-                Board childState = new Board(node.getState());
-                childState.createMove(move);
-                node.addChild(new Node(childState, move, node, getMyState()));
-            }
-        }
+    private int childCount(int node) {
+        return tree.firstChild(node) > 0 ? tree.childCount(node) : 0;
     }
 
     /**
-     * Simulation, also known as rollout,
-     * is a process that starts with the state of a node and randomly
-     * selects a legal action until a termination state is reached,
-     * which is the end of the game.
+     * Return the child of NODE with the most visits (the most wins among those), or -1 if it has none.
+     * Unlike selection, this leaves out the exploration term of the UCT value: the move to play is the
+     * one the search has found most worth looking at, not the one it would look at next.
      * @param node The node
-     * @return The result of the simulation
+     * @return The most visited child
      */
-    private PieceState simulate(Node node) {
-        Board tempNode = new Board(node.getState());
-        ArrayList<Move> possibleMoves;
+    private int mostVisitedChild(int node) {
+        int best = -1;
+        int first = tree.firstChild(node);
+        for (int child = first; child < first + childCount(node); child++) {
+            if (best < 0 || tree.visits(child) > tree.visits(best)
+                    || (tree.visits(child) == tree.visits(best)
+                        && tree.wins(child) > tree.wins(best))) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /** The state of one searching thread: its own copy of the root
+     *  position, scratch space, and counts, which findMove adds up when
+     *  the search is over. */
+    private class Worker {
 
-        while (tempNode.getWinner() == null) {
-            possibleMoves = node.possibleMoves(tempNode, tempNode.nextMove());
-            if (possibleMoves.isEmpty()) {
-                // 如果没有合法的移动，直接返回当前状态的赢家
-                return tempNode.getWinner();
+        /** A worker whose playouts draw their moves from RANDOM. */
+        Worker(SplittableRandom random) {
+            rollout = new Rollout(random);
+        }
+
+        /** Prepare to search from ROOT, the root position. */
+        void start(Board root) {
+            board = new Board(root);
+            playouts = 0;
+            maxDepth = 0;
+        }
+
+        /** Run playouts until PLAYOUTS, shared by all workers, reaches
+         *  the playout budget, System.nanoTime() reaches DEADLINE, or STOP
+         *  is set (which I also set at the deadline, for the others).  The
+         *  first worker does not stop for STOP before its first playout,
+         *  so that the root has children to choose from. */
+        void run(AtomicInteger playouts, long deadline, AtomicBoolean stop) {
+            boolean first = this == workers[0];
+            while (!stop.get() || (first && this.playouts == 0)) {
+                if (playoutLimit > 0 && playouts.getAndIncrement() >= playoutLimit) {
+                    break;
+                }
+                runMCTS();
+                this.playouts += 1;
+                if (this.playouts % CHECK_INTERVAL == 0 && moveTime > 0
+                        && System.nanoTime() - deadline >= 0) {
+                    stop.set(true);
+                }
             }
-            Move move = possibleMoves.get((int) (Math.random() * possibleMoves.size()));
-            tempNode.createMove(move);
         }
 
-        return tempNode.getWinner();
-    }
+        /***
+         * Perform the four phases of MCTS: selection, extension, simulation, and back propagation.
+         * In the selection phase, we select the incomplete child node with the largest UCT value.
+         * In the extension phase, we extend the selected node to generate a new child node.
+         * In the simulation phase, we randomly simulate the game until the end, and then we get the simulation results.
+         * In the back propagation phase, we will update the number of node visits and victories according to the simulation results.
+         * Nodes hold no positions: my board, the root position, is brought to
+         * each node by making the moves on the way down, and restored at the end.
+         * Each node is counted as visited on the way down (see setThreads), and its result added on the way up.
+         */
+        private void runMCTS() {
+            // Select
+            int node = NodePool.ROOT;
+            int depth = 0;
+            tree.addVisit(node);
+            while (tree.firstChild(node) > 0) {
+                node = select(node);
+                tree.addVisit(node);
+                board.makeMove(Move.codeOf(tree.moveId(node)));
+                depth++;
+            }
 
-    /**
-     * In the process of back propagation,
-     * The number of visits and wins for all nodes in the selected path needs to be updated.
-     * If the result of the simulation is a win for the player of the current node, we increase the number of wins for that node.
-     * @param node The node
-     * @param winner The winner
-     */
-    private void backpropagate(Node node, PieceState winner) {
-        Node tempNode = node;
-        while (tempNode != null) {
-            tempNode.incrementVisits();
-            if (tempNode.getState().nextMove() == winner) {
-                tempNode.incrementWins();
+            // Expand
+            if (board.getWinner() == null) {
+                int first = expand(node);
+                if (first > 0) { // else another thread is expanding it, or the pool is full
+                    node = first;
+                    tree.addVisit(node);
+                    board.makeMove(Move.codeOf(tree.moveId(node)));
+                    depth++;
+                }
+            }
+            maxDepth = Math.max(maxDepth, depth);
+
+            // Simulate
+            PieceState result = simulate();
+
+            // Backpropagation
+            backpropagate(node, board.nextMove().opposite(), result);
+            for (; depth > 0; depth--) {
+                board.unmakeMove();
             }
-            tempNode = tempNode.getParent();
         }
-    }
 
+        /***
+         * In the selection phase, we need to use a strategy to select a node that is not fully extended or has no child nodes,
+         * starting with the root node.
+         * Here, we use the Upper Confidence Bound 1 applied to Trees (UCT) strategy.
+         * The UCT policy selects the child node with the largest UCT value, which is calculated by the node's win rate and access times.
+         * This method takes one step down: it returns the child of NODE
+         * (which has children) to visit next.
+         * @param node The node
+         * @return The selected child
+         */
+        private int select(int node) {
+            int first = tree.firstChild(node);
+            int selected = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logVisits = Math.log(tree.visits(node));
+            for (int child = first; child < first + childCount(node); child++) {
+                int visits = tree.visits(child);
+                if (visits == 0) { // 未访问过的子节点优先
+                    return child;
+                }
+                double uctValue = tree.wins(child) / visits
+                        + Math.sqrt(2 * logVisits / visits);
+                if (uctValue > bestValue) {
+                    bestValue = uctValue;
+                    selected = child;
+                }
+            }
+            return selected;
+        }
+
+        /***
+         * In the extension phase, we add the children of the selected node: one for each legal move in its
+         * position (my board), or a single pass if there is none.  Return the first child, which is visited
+         * first, or -1 if the node cannot be expanded now (see NodePool.expand).
+         * @param node The node
+         * @return The first new child, or -1
+         */
+        private int expand(int node) {
+            MoveList possibleMoves = moveList;
+            int n = board.generateMoves(possibleMoves);
+            if (n == 0) { // 没有合法的移动时只能跳过
+                childMoveIds[0] = Move.PASS_ID;
+                n = 1;
+            } else {
+                for (int k = 0; k < n; k++) {
+                    childMoveIds[k] = Move.id(possibleMoves.get(k));
+                }
+            }
+            return tree.expand(node, childMoveIds, n);
+        }
+
+        /**
+         * Simulation, also known as rollout,
+         * is a process that starts with the state of a node and randomly
+         * selects a legal action until a termination state is reached,
+         * which is the end of the game.
+         * It starts from my board, which is not changed (see Rollout).
+         * @return The result of the simulation
+         */
+        private PieceState simulate() {
+            return rollout.play(board);
+        }
+
+        /**
+         * In the process of back propagation,
+         * The number of visits and wins for all nodes in the selected path needs to be updated.
+         * Each node's wins are those of the player who made its move, as the UCT value of its parent's
+         * choice of it requires: MOVER for NODE, alternating going up (passes are nodes too).
+         * A draw counts as half a win.  The visits were counted on the way down.
+         * @param node The node
+         * @param mover The player who made NODE's move
+         * @param winner The winner
+         */
+        private void backpropagate(int node, PieceState mover, PieceState winner) {
+            for (int n = node; n >= 0; n = tree.parent(n)) {
+                tree.addResult(n, winner == mover ? 2 : winner == PieceState.EMPTY ? 1 : 0);
+                mover = mover.opposite();
+            }
+        }
+
+        /** My copy of the root position. */
+        private Board board;
+        /** My playouts' engine and random number generator. */
+        private final Rollout rollout;
+        /** Reusable list for generating moves during expansion. */
+        private final MoveList moveList = new MoveList();
+        /** Move IDs of the children being created by expand. */
+        private final int[] childMoveIds = new int[MoveList.MAX_MOVES];
+        /** My playouts in the current search, and the depth of the
+         *  deepest node I selected. */
+        private int playouts, maxDepth;
+    }
 }
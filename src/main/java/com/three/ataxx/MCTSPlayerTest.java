@@ -0,0 +1,63 @@
+package com.three.ataxx;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static com.three.ataxx.TestHelper.game;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MCTSPlayerTest {
+
+    @Test
+    public void testPlayoutBudget() {
+        Game game = game();
+        MCTSPlayer player = new MCTSPlayer(game, PieceState.RED, 0);
+        player.setMoveTime(0);
+        player.setPlayouts(300);
+        Move move = Move.move(player.getAtaxxMove());
+        assertTrue(game.getAtaxxBoard().moveLegal(move));
+        assertEquals(300, player.stats().playouts());
+    }
+
+    @Test
+    public void testTimeBudget() {
+        Game game = game();
+        MCTSPlayer player = new MCTSPlayer(game, PieceState.RED, 0);
+        player.setThreads(2);
+        player.setMoveTime(50);
+        Move move = Move.move(player.getAtaxxMove());
+        assertTrue(game.getAtaxxBoard().moveLegal(move));
+        assertTrue(player.stats().playouts() > 0);
+        assertTrue(player.stats().millis() >= 50); // ran to its deadline
+    }
+
+    @Test
+    public void testNoLimit() throws InterruptedException {
+        Game game = game();
+        MCTSPlayer player = new MCTSPlayer(game, PieceState.RED, 0);
+        player.setPlayouts(300);
+        assertEquals(300 * 128, player.nodesToReserve());
+        player.setMoveTime(0);
+        player.setPlayouts(0);
+        assertEquals(MCTSPlayer.MAX_RESERVED_NODES, player.nodesToReserve());
+        AtomicBoolean done = new AtomicBoolean();
+        Thread stopper = new Thread(() -> {
+            while (!done.get()) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException excp) {
+                    return;
+                }
+                player.stop();
+            }
+        });
+        stopper.start();
+        Move move = Move.move(player.getAtaxxMove());
+        done.set(true);
+        stopper.join();
+        assertTrue(game.getAtaxxBoard().moveLegal(move));
+        assertTrue(player.stats().playouts() > 0);
+    }
+}
@@ -12,12 +12,13 @@ public class Main {
 
     /** Run Ataxx getAtaxxGame.  Options (in ARGS0):
      *       --display: Use GUI.
+     *       --stats: Print the statistics of each AI search.
      *  Trailing arguments are input files; the standard input is the
      *  default.
      */
     public static void main(String[] args0) {
         CommandArgs args =
-            new CommandArgs("--display{0,1}", args0);
+            new CommandArgs("--display{0,1} --stats{0,1}", args0);
 
         Game game;
         if (args.contains("--display")) {
@@ -46,6 +47,10 @@ public class Main {
             game = new Game(new TextSource(inReaders),
                             (b) -> { }, new TextReporter());
         }
+        if (args.contains("--stats")) {
+            game.setStatsListener((player, stats) ->
+                System.err.printf("* %s %s%n", player, stats));
+        }
         System.exit(game.play());
     }
 }
@@ -1,12 +1,14 @@
 package com.three.ataxx;
 
+import java.io.Serializable;
+import java.util.Arrays;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 
 /** Represents an Ataxx move. There is one Move object created for
  *  each distinct Move. */
-class Move {
+class Move implements Serializable {
 
     /* Moves getContent generated often during the calculations of an AIPlayer,
      * so it's a good idea to make that operation efficient.  Instead of
@@ -28,6 +30,15 @@ class Move {
         String location1 = String.valueOf(this.col1) + this.row1;
         isClone = isClone(location0, location1);
         isJump = isJump(location0, location1);
+        if (col1 >= 2 && col1 < ONESIDE + 2 && row1 >= 2 && row1 < ONESIDE + 2) {
+            code = code((row0 - 2) * ONESIDE + col0 - 2,
+                        (row1 - 2) * ONESIDE + col1 - 2);
+        } else {
+            code = -1;
+        }
+        int offset = (row1 - row0 + 2) * 5 + (col1 - col0 + 2);
+        id = ((row0 - 2) * ONESIDE + col0 - 2) * OFFSETS
+            + (offset > OFFSETS / 2 ? offset - 1 : offset);
     }
 
     /** A pass. */
@@ -35,6 +46,8 @@ class Move {
         col0 = col1 = row0 = row1 = 0;
         fromIndex = toIndex = -1;
         isJump = isClone = false;
+        code = PASS_CODE;
+        id = PASS_ID;
     }
 
     /** A factory method that returns a Move from COL0 ROW0 to COL1 ROW1,
@@ -48,6 +61,11 @@ class Move {
             [col1 - 'a' + 2][row1 - '1' + 2];
     }
 
+    /** Return the Move with packed code CODE (see code()). */
+    static Move move(int code) {
+        return code == PASS_CODE ? PASS : BY_CODE[code];
+    }
+
     /** Return the Move denoted by STR, or null if STR is not a syntactically
      *  valid move designation. */
     static Move move(String str) {
@@ -146,6 +164,69 @@ class Move {
         return row1;
     }
 
+    /** Return my packed code: the bit numbers (see Board.square) of my
+     *  from and to squares in one int, or PASS_CODE if I am a pass, or
+     *  -1 if I leave the board.  Searches pass moves around in this
+     *  form; see Board.generateMoves and Board.makeMove(int). */
+    int code() {
+        return code;
+    }
+
+    /** Return the packed code of the move between the squares with bit
+     *  numbers FROMSQ and TOSQ. */
+    static int code(int fromSq, int toSq) {
+        return (fromSq << SQUARE_BITS) | toSq;
+    }
+
+    /** Return the bit number of the from square of the move with packed
+     *  code CODE, which must not be a pass. */
+    static int fromSquare(int code) {
+        return code >>> SQUARE_BITS;
+    }
+
+    /** Return the bit number of the to square of the move with packed
+     *  code CODE, which must not be a pass. */
+    static int toSquare(int code) {
+        return code & ((1 << SQUARE_BITS) - 1);
+    }
+
+    /** Return my dense ID: 0 .. NUM_IDS - 1, made of my from square
+     *  (its bit number, see Board.square) and which of the 24 offsets
+     *  within 2 rows and columns I move by, or PASS_ID for the pass.
+     *  Tables about moves (history scores, Q-values, child links) can
+     *  be flat arrays indexed by ID. */
+    int id() {
+        return id;
+    }
+
+    /** Return the Move with dense ID ID. */
+    static Move byId(int id) {
+        return BY_ID[id];
+    }
+
+    /** Return the dense ID of the move with packed code CODE. */
+    static int id(int code) {
+        return ID_OF_CODE[code];
+    }
+
+    /** Return the packed code of the move with dense ID ID, or -1 if
+     *  that move leaves the board. */
+    static int codeOf(int id) {
+        return CODE_OF_ID[id];
+    }
+
+    /** Return the bit number of the from square of the move with dense
+     *  ID ID, which must not be a pass. */
+    static int idFrom(int id) {
+        return ID_FROM[id];
+    }
+
+    /** Return the bit number of the to square of the move with dense ID
+     *  ID, or -1 if that move leaves the board or is a pass. */
+    static int idTo(int id) {
+        return ID_TO[id];
+    }
+
     /** Return the linearized index of my 'from' square,
      *  or -1 if I am a pass. */
     int fromIndex() {
@@ -158,6 +239,12 @@ class Move {
         return toIndex;
     }
 
+    /** Replace a deserialized copy of a Move with the unique Move for
+     *  the same ID, so that saved tables keyed by Moves work as before. */
+    private Object readResolve() {
+        return byId(id);
+    }
+
     @Override
     public String toString() {
         String message = "";
@@ -183,12 +270,35 @@ class Move {
     /** Size of side of a board plus 2-deep boundary. */
     static final int DEEPER_ONESIDE = ONESIDE + 4;
 
+    /** Number of bits used for each square in a packed code. */
+    private static final int SQUARE_BITS = 6;
+
+    /** The packed code of a pass. */
+    static final int PASS_CODE = (1 << (2 * SQUARE_BITS)) - 1;
+
+    /** Number of squares within 2 rows and columns of a square. */
+    static final int OFFSETS = 24;
+
+    /** The dense ID of a pass; the other IDs are below it. */
+    static final int PASS_ID = ONESIDE * ONESIDE * OFFSETS;
+
+    /** Number of dense move IDs, including the pass. */
+    static final int NUM_IDS = PASS_ID + 1;
+
     /** The pass. */
     static final Move PASS = new Move();
 
     /** Linearized indices. */
     private final int fromIndex, toIndex;
 
+    /** Packed code; see code(). */
+    private final int code;
+
+    /** Dense ID; see id(). */
+    private final int id;
+
+    private static final long serialVersionUID = 1L;
+
     /** Move characteristics, indicating whether move is clone or jump. */
     private boolean isClone, isJump;
 
@@ -200,18 +310,45 @@ class Move {
     private static final Move[][][][] OVERALL_MOVES =
         new Move[DEEPER_ONESIDE][DEEPER_ONESIDE][DEEPER_ONESIDE][DEEPER_ONESIDE];
 
+    /** The Moves on the board, indexed by packed code. */
+    private static final Move[] BY_CODE = new Move[PASS_CODE];
+
+    /** All Moves from a square on the board, and the pass, indexed by
+     *  dense ID. */
+    private static final Move[] BY_ID = new Move[NUM_IDS];
+
+    /** Dense ID of each packed code (-1 where unused). */
+    private static final int[] ID_OF_CODE = new int[PASS_CODE + 1];
+
+    /** Packed code, from square and to square of each dense ID. */
+    private static final int[] CODE_OF_ID = new int[NUM_IDS],
+        ID_FROM = new int[NUM_IDS], ID_TO = new int[NUM_IDS];
+
     static {
+        Arrays.fill(ID_OF_CODE, -1);
         for (int c = 2; c < ONESIDE + 2; c += 1) {
             for (int r = 2; r < ONESIDE + 2; r += 1) {
                 for (int dc = -2; dc <= 2; dc += 1) {
                     for (int dr = -2; dr <= 2; dr += 1) {
                         if (dc != 0 || dr != 0) {
-                            OVERALL_MOVES[c][r][c + dc][r + dr] =
-                                new Move(c, r, c + dc, r + dr);
+                            Move move = new Move(c, r, c + dc, r + dr);
+                            OVERALL_MOVES[c][r][c + dc][r + dr] = move;
+                            BY_ID[move.id] = move;
+                            CODE_OF_ID[move.id] = move.code;
+                            ID_FROM[move.id] = (r - 2) * ONESIDE + c - 2;
+                            ID_TO[move.id] = move.code >= 0 ? toSquare(move.code) : -1;
+                            if (move.code >= 0) {
+                                BY_CODE[move.code] = move;
+                                ID_OF_CODE[move.code] = move.id;
+                            }
                         }
                     }
                 }
             }
         }
+        BY_ID[PASS_ID] = PASS;
+        CODE_OF_ID[PASS_ID] = PASS_CODE;
+        ID_FROM[PASS_ID] = ID_TO[PASS_ID] = -1;
+        ID_OF_CODE[PASS_CODE] = PASS_ID;
     }
 }
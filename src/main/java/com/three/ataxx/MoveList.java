@@ -0,0 +1,67 @@
+package com.three.ataxx;
+
+/** A reusable list of moves, held as packed codes (see Move.code()) in
+ *  a preallocated array.  Searches keep one per ply and refill it with
+ *  Board.generateMoves, so that generating moves creates no garbage. */
+class MoveList {
+
+    /** An empty list. */
+    MoveList() {
+        moves = new int[MAX_MOVES];
+    }
+
+    /** Return the number of moves in me. */
+    int size() {
+        return size;
+    }
+
+    /** Return true iff I hold no moves. */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Return the packed code of my Kth move. */
+    int get(int k) {
+        return moves[k];
+    }
+
+    /** Return my Kth move as a Move. */
+    Move move(int k) {
+        return Move.move(moves[k]);
+    }
+
+    /** Append the move with packed code CODE. */
+    void add(int code) {
+        moves[size] = code;
+        size += 1;
+    }
+
+    /** Move my Kth move to the front, keeping the others in order. */
+    void moveToFront(int k) {
+        int code = moves[k];
+        System.arraycopy(moves, 0, moves, 1, k);
+        moves[0] = code;
+    }
+
+    /** Exchange my Jth and Kth moves. */
+    void swap(int j, int k) {
+        int code = moves[j];
+        moves[j] = moves[k];
+        moves[k] = code;
+    }
+
+    /** Remove all my moves. */
+    void clear() {
+        size = 0;
+    }
+
+    /** An upper bound on the number of legal moves in any position: a
+     *  clone into each square plus 16 jumps from each square. */
+    static final int MAX_MOVES = Board.ONESIDE * Board.ONESIDE * 17;
+
+    /** The packed codes; entries 0 .. size - 1 are in use. */
+    private final int[] moves;
+
+    /** Number of moves in use. */
+    private int size;
+}
@@ -0,0 +1,79 @@
+package com.three.ataxx;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MoveListTest {
+
+    private static void createMoves(Board b, String[] moves) {
+        for (String s : moves) {
+            b.createMove(s.charAt(0), s.charAt(1),
+                    s.charAt(3), s.charAt(4));
+        }
+    }
+
+    /** Check the generated moves of B against moveLegal: every jump
+     *  exactly once and every clone destination exactly once. */
+    private static void checkMoves(Board b) {
+        MoveList moves = new MoveList();
+        b.generateMoves(moves);
+        Set<String> jumps = new HashSet<>();
+        Set<Integer> cloneTargets = new HashSet<>();
+        for (int k = 0; k < moves.size(); k++) {
+            Move move = moves.move(k);
+            assertTrue(move.toString(), b.moveLegal(move));
+            if (move.isJump()) {
+                assertTrue(jumps.add(move.toString()));
+            } else {
+                assertTrue(cloneTargets.add(move.toIndex()));
+            }
+        }
+        int legalJumps = 0;
+        Set<Integer> legalTargets = new HashSet<>();
+        for (char c = 'a'; c <= 'g'; c++) {
+            for (char r = '1'; r <= '7'; r++) {
+                for (int dc = -2; dc <= 2; dc++) {
+                    for (int dr = -2; dr <= 2; dr++) {
+                        Move move = Move.move(c, r, (char) (c + dc), (char) (r + dr));
+                        if (move != null && b.moveLegal(move)) {
+                            if (move.isJump()) {
+                                legalJumps++;
+                            } else {
+                                legalTargets.add(move.toIndex());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(legalJumps, jumps.size());
+        assertEquals(legalTargets, cloneTargets);
+    }
+
+    @Test
+    public void testInitialMoves() {
+        Board b = new Board();
+        MoveList moves = new MoveList();
+        assertEquals(2 * 3 + 2 * 5, b.generateMoves(moves));
+        checkMoves(b);
+    }
+
+    @Test
+    public void testMidgameMoves() {
+        Board b = new Board();
+        b.setBlock('c', '3');
+        createMoves(b, new String[] {
+                "a7-b6", "a1-a3", "b6-b5", "g7-f7",
+                "b5-b4", "g7-e5", "g1-f2", "f7-d6"
+        });
+        checkMoves(b);
+        b.pass();
+        checkMoves(b);
+    }
+
+}
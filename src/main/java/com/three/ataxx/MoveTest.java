@@ -1,5 +1,8 @@
 package com.three.ataxx;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -32,5 +35,33 @@ public class MoveTest {
         assertEquals(Boolean.valueOf("false"), Move.isJump("b2","b5"));
     }
 
+    @Test
+    public void testDenseIds() {
+        Set<Integer> ids = new HashSet<>();
+        for (char c = 'a'; c <= 'g'; c++) {
+            for (char r = '1'; r <= '7'; r++) {
+                for (int dc = -2; dc <= 2; dc++) {
+                    for (int dr = -2; dr <= 2; dr++) {
+                        Move m = Move.move(c, r, (char) (c + dc), (char) (r + dr));
+                        if (m == null) {
+                            continue;
+                        }
+                        assertEquals(Boolean.valueOf("true"), ids.add(m.id()));
+                        assertEquals(m, Move.byId(m.id()));
+                        assertEquals(Board.square(m.fromIndex()), Move.idFrom(m.id()));
+                        assertEquals(Board.square(m.toIndex()), Move.idTo(m.id()));
+                        if (m.code() >= 0) {
+                            assertEquals(m.id(), Move.id(m.code()));
+                            assertEquals(m.code(), Move.codeOf(m.id()));
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(Move.PASS_ID, ids.size());
+        assertEquals(Move.pass(), Move.byId(Move.PASS_ID));
+        assertEquals(Move.PASS_ID, Move.id(Move.PASS_CODE));
+    }
+
 
 }
@@ -0,0 +1,259 @@
+package com.three.ataxx;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** The nodes of a Monte Carlo search tree, kept as parallel arrays
+ *  indexed by node number rather than as objects.
+ *
+ *  A node holds no position: only the ID of the move that leads to it
+ *  from its parent (see Move.id), so that its position is rebuilt by
+ *  making the moves on the path from the root.  The children of a node
+ *  are created together and numbered consecutively, so that a node
+ *  needs only the number of its first child and its number of
+ *  children.  Wins are counted for the player who made the node's move,
+ *  in half points, a draw counting one.  A node takes 20 bytes, so that
+ *  a tree of millions of nodes takes tens of megabytes in a handful of
+ *  arrays, which the garbage collector never needs to trace.
+ *
+ *  Several threads may search the tree at once without locks.  Visits
+ *  and wins are added atomically.  A node's children are installed by
+ *  compare-and-set on its first-child field: the thread that changes it
+ *  from 0 (no children, as the root is never a child) to EXPANDING
+ *  takes a block of nodes from the pool, fills it in, and only then
+ *  publishes the block's number, so that a thread that sees the number
+ *  also sees the children.  A thread that loses the race just goes on
+ *  without expanding.  The pool cannot grow during a search; once it is
+ *  full, expand fails, and it is up to the caller to reserve room
+ *  between searches.  The other methods (clear, reroot, reserve) are
+ *  for use by one thread while no search is running. */
+class NodePool {
+
+    /** The number of the root. */
+    static final int ROOT = 0;
+
+    /** Move ID recorded for the root, which has no move. */
+    static final int NO_MOVE = -1;
+
+    /** Value of the first-child field of a node being expanded. */
+    private static final int EXPANDING = -1;
+
+    /** A pool holding just a root, with room for CAPACITY nodes before
+     *  it must grow. */
+    NodePool(int capacity) {
+        int size = Math.max(1, capacity);
+        moveIds = new short[size];
+        parents = new int[size];
+        firstChildren = new int[size];
+        childCounts = new short[size];
+        visits = new int[size];
+        halfWins = new int[size];
+        clear();
+    }
+
+    /** Remove all nodes but a new, unvisited root. */
+    void clear() {
+        size.set(1);
+        moveIds[ROOT] = NO_MOVE;
+        parents[ROOT] = -1;
+        firstChildren[ROOT] = 0;
+        childCounts[ROOT] = 0;
+        visits[ROOT] = 0;
+        halfWins[ROOT] = 0;
+    }
+
+    /** Make room for at least N more nodes. */
+    void reserve(int n) {
+        int capacity = moveIds.length;
+        if (size() + n > capacity) {
+            capacity = Math.max(size() + n, 2 * capacity);
+            moveIds = Arrays.copyOf(moveIds, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            childCounts = Arrays.copyOf(childCounts, capacity);
+            visits = Arrays.copyOf(visits, capacity);
+            halfWins = Arrays.copyOf(halfWins, capacity);
+        }
+    }
+
+    /** Make NODE the root, keeping the nodes below it, renumbered, with
+     *  their visits and wins, and removing all others.  Its move and
+     *  parent are forgotten.  The nodes kept are gathered in scratch
+     *  arrays that are kept from one call to the next, so that the work
+     *  and the memory used are in proportion to the size of the subtree,
+     *  not to my capacity. */
+    void reroot(int node) {
+        // Number the kept nodes breadth first, keeping siblings together.
+        order = fit(order, 1);
+        newParents = fit(newParents, 1);
+        newFirstChildren = fit(newFirstChildren, 1);
+        order[ROOT] = node;
+        newParents[ROOT] = -1;
+        int n = 1;
+        for (int i = 0; i < n; i++) {
+            int old = order[i];
+            int first = firstChildren[old];
+            int count = first > 0 ? childCounts[old] : 0;
+            newFirstChildren[i] = count > 0 ? n : 0;
+            order = fit(order, n + count);
+            newParents = fit(newParents, n + count);
+            newFirstChildren = fit(newFirstChildren, n + count);
+            for (int child = first; child < first + count; child++, n++) {
+                order[n] = child;
+                newParents[n] = i;
+            }
+        }
+        System.arraycopy(newParents, 0, parents, 0, n);
+        System.arraycopy(newFirstChildren, 0, firstChildren, 0, n);
+        // Gather the other fields through one scratch array of each type.
+        int[] intScratch = newParents;
+        shortScratch = fit(shortScratch, n);
+        for (int i = 0; i < n; i++) {
+            shortScratch[i] = moveIds[order[i]];
+        }
+        System.arraycopy(shortScratch, 0, moveIds, 0, n);
+        moveIds[ROOT] = NO_MOVE;
+        for (int i = 0; i < n; i++) {
+            shortScratch[i] = childCounts[order[i]];
+        }
+        System.arraycopy(shortScratch, 0, childCounts, 0, n);
+        for (int i = 0; i < n; i++) {
+            intScratch[i] = visits[order[i]];
+        }
+        System.arraycopy(intScratch, 0, visits, 0, n);
+        for (int i = 0; i < n; i++) {
+            intScratch[i] = halfWins[order[i]];
+        }
+        System.arraycopy(intScratch, 0, halfWins, 0, n);
+        size.set(n);
+    }
+
+    /** Return ARRAY if it has at least N elements, and otherwise a copy
+     *  of it with room for at least N. */
+    private static int[] fit(int[] array, int n) {
+        return array.length >= n ? array
+            : Arrays.copyOf(array, Math.max(n, 2 * array.length));
+    }
+
+    /** Return ARRAY if it has at least N elements, and otherwise a new
+     *  array with room for at least N. */
+    private static short[] fit(short[] array, int n) {
+        return array.length >= n ? array
+            : new short[Math.max(n, 2 * array.length)];
+    }
+
+    /** Return the number of nodes. */
+    int size() {
+        return size.get();
+    }
+
+    /** Return the number of nodes I can hold without reserve. */
+    int capacity() {
+        return moveIds.length;
+    }
+
+    /** Give NODE, which has no children, one child for each of the
+     *  N move IDs in MOVEIDS, in that order, and return the number of
+     *  the first.  Return -1 instead, doing nothing, if another thread
+     *  has expanded or is expanding NODE, or if I am full. */
+    int expand(int node, int[] moveIds, int n) {
+        if (!FIELD.compareAndSet(firstChildren, node, 0, EXPANDING)) {
+            return -1;
+        }
+        int first;
+        do {
+            first = size.get();
+            if (first + n > this.moveIds.length) {
+                FIELD.setRelease(firstChildren, node, 0);
+                return -1;
+            }
+        } while (!size.compareAndSet(first, first + n));
+        for (int k = 0; k < n; k++) {
+            int child = first + k;
+            this.moveIds[child] = (short) moveIds[k];
+            parents[child] = node;
+            firstChildren[child] = 0;
+            childCounts[child] = 0;
+            visits[child] = 0;
+            halfWins[child] = 0;
+        }
+        childCounts[node] = (short) n;
+        FIELD.setRelease(firstChildren, node, first);
+        return first;
+    }
+
+    /** Count a visit to NODE by a playout whose result is not yet known:
+     *  until addResult, it counts as a loss for the player who made
+     *  NODE's move (a "virtual loss"), which steers other threads to
+     *  other nodes. */
+    void addVisit(int node) {
+        FIELD.getAndAdd(visits, node, 1);
+    }
+
+    /** Add to NODE the result of a playout already counted by addVisit:
+     *  HALFWINS, for the player who made NODE's move, is 2 for a win, 1
+     *  for a draw and 0 for a loss. */
+    void addResult(int node, int halfWins) {
+        if (halfWins != 0) {
+            FIELD.getAndAdd(this.halfWins, node, halfWins);
+        }
+    }
+
+    /** Return the ID of the move leading to NODE, or NO_MOVE for the
+     *  root. */
+    int moveId(int node) {
+        return moveIds[node];
+    }
+
+    /** Return the parent of NODE, or -1 for the root. */
+    int parent(int node) {
+        return parents[node];
+    }
+
+    /** Return the number of the first child of NODE, or a number that
+     *  is not positive if it has no children (yet). */
+    int firstChild(int node) {
+        return (int) FIELD.getAcquire(firstChildren, node);
+    }
+
+    /** Return the number of children of NODE, which firstChild has shown
+     *  to have some. */
+    int childCount(int node) {
+        return childCounts[node];
+    }
+
+    /** Return the number of playouts through NODE, including those under
+     *  way. */
+    int visits(int node) {
+        return visits[node];
+    }
+
+    /** Return the wins of the player who made NODE's move in the
+     *  playouts through NODE, a draw counting half. */
+    float wins(int node) {
+        return halfWins[node] / 2f;
+    }
+
+    /** Access to the elements of the int arrays shared between threads. */
+    private static final VarHandle FIELD =
+        MethodHandles.arrayElementVarHandle(int[].class);
+
+    /** The node arrays, indexed by node number; nodes 0 .. size - 1 are
+     *  in use. */
+    private short[] moveIds;
+    private int[] parents;
+    private int[] firstChildren;
+    private short[] childCounts;
+    private int[] visits;
+    private int[] halfWins;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** Scratch space for reroot: the old number of each kept node, and
+     *  the new parent and first child of each. */
+    private int[] order = new int[0], newParents = new int[0],
+        newFirstChildren = new int[0];
+    /** Scratch space for reroot's short fields. */
+    private short[] shortScratch = new short[0];
+}
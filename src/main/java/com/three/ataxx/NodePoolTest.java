@@ -0,0 +1,126 @@
+package com.three.ataxx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NodePoolTest {
+
+    @Test
+    public void testExpandAndUpdate() {
+        NodePool tree = new NodePool(8);
+        assertEquals(1, tree.size());
+        assertEquals(NodePool.NO_MOVE, tree.moveId(NodePool.ROOT));
+        int first = tree.expand(NodePool.ROOT, new int[] {5, 7, Move.PASS_ID}, 3);
+        assertEquals(1, first);
+        assertEquals(4, tree.size());
+        assertEquals(3, tree.childCount(NodePool.ROOT));
+        assertEquals(Move.PASS_ID, tree.moveId(first + 2));
+        assertEquals(NodePool.ROOT, tree.parent(first + 1));
+        int grandchild = tree.expand(first + 1, new int[] {9}, 1);
+        assertEquals(first + 1, tree.parent(grandchild));
+        assertEquals(0, tree.childCount(grandchild));
+        tree.addVisit(grandchild);
+        tree.addResult(grandchild, 2);
+        tree.addVisit(grandchild);
+        tree.addResult(grandchild, 1);
+        assertEquals(2, tree.visits(grandchild));
+        assertEquals(1.5f, tree.wins(grandchild), 0);
+        tree.clear();
+        assertEquals(1, tree.size());
+        assertTrue(tree.firstChild(NodePool.ROOT) <= 0);
+    }
+
+    @Test
+    public void testExpandOnce() {
+        NodePool tree = new NodePool(4);
+        int first = tree.expand(NodePool.ROOT, new int[] {1, 2}, 2);
+        assertEquals(-1, tree.expand(NodePool.ROOT, new int[] {3}, 1));
+        assertEquals(-1, tree.expand(first, new int[] {3, 4}, 2)); // full
+        assertTrue(tree.firstChild(first) <= 0);
+        tree.reserve(2);
+        assertEquals(3, tree.expand(first, new int[] {3, 4}, 2));
+    }
+
+    @Test
+    public void testReroot() {
+        NodePool tree = new NodePool(16);
+        int first = tree.expand(NodePool.ROOT, new int[] {1, 2}, 2);
+        int grandchild = tree.expand(first + 1, new int[] {3, 4, 5}, 3);
+        tree.expand(grandchild + 2, new int[] {6}, 1);
+        tree.expand(first, new int[] {7}, 1);
+        tree.addVisit(first + 1);
+        tree.addResult(first + 1, 2);
+        tree.addVisit(grandchild + 1);
+        tree.addResult(grandchild + 1, 1);
+        tree.reroot(first + 1);
+        assertEquals(5, tree.size());
+        assertEquals(NodePool.NO_MOVE, tree.moveId(NodePool.ROOT));
+        assertEquals(1, tree.visits(NodePool.ROOT));
+        assertEquals(3, tree.childCount(NodePool.ROOT));
+        int child = tree.firstChild(NodePool.ROOT);
+        assertEquals(4, tree.moveId(child + 1));
+        assertEquals(0.5f, tree.wins(child + 1), 0);
+        assertEquals(1, tree.childCount(child + 2));
+        assertEquals(6, tree.moveId(tree.firstChild(child + 2)));
+        assertEquals(child + 2, tree.parent(tree.firstChild(child + 2)));
+    }
+
+    @Test
+    public void testRerootRenumbers() {
+        NodePool tree = new NodePool(16);
+        int first = tree.expand(NodePool.ROOT, new int[] {1, 2}, 2);
+        int late = tree.expand(first + 1, new int[] {3, 4}, 2);
+        int early = tree.expand(first, new int[] {5}, 1);
+        tree.expand(late + 1, new int[] {6}, 1);
+        tree.addVisit(late + 1);
+        tree.addResult(late + 1, 2);
+        tree.reroot(NodePool.ROOT); // keeps all, breadth first
+        assertEquals(7, tree.size());
+        assertEquals(16, tree.capacity());
+        assertTrue(early > late);
+        assertEquals(5, tree.moveId(tree.firstChild(first)));
+        int second = tree.firstChild(first + 1);
+        assertEquals(first + 1, tree.parent(second));
+        assertEquals(2, tree.childCount(first + 1));
+        assertEquals(4, tree.moveId(second + 1));
+        assertEquals(1f, tree.wins(second + 1), 0);
+        assertEquals(1, tree.visits(second + 1));
+        tree.reroot(first + 1);
+        assertEquals(4, tree.size());
+        assertEquals(2, tree.childCount(NodePool.ROOT));
+        int child = tree.firstChild(NodePool.ROOT);
+        assertEquals(3, tree.moveId(child));
+        assertEquals(6, tree.moveId(tree.firstChild(child + 1)));
+        assertEquals(child + 1, tree.parent(tree.firstChild(child + 1)));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        NodePool tree = new NodePool(1 << 12);
+        int[] expanded = new int[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    tree.addVisit(NodePool.ROOT);
+                    tree.addResult(NodePool.ROOT, 1);
+                    if (tree.expand(NodePool.ROOT, new int[] {1, 2, 3}, 3) > 0) {
+                        synchronized (expanded) {
+                            expanded[0] += 1;
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, expanded[0]);
+        assertEquals(4, tree.size());
+        assertEquals(4000, tree.visits(NodePool.ROOT));
+        assertEquals(2000f, tree.wins(NodePool.ROOT), 0);
+    }
+}
@@ -0,0 +1,336 @@
+package com.three.ataxx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/** A parallel alpha-beta search whose result depends only on the
+ *  position and the depth, not on the number of threads or the order in
+ *  which they finish (for analysis, where Searcher's Lazy SMP will not
+ *  do).
+ *
+ *  The search is "Young Brothers Wait": at each node far enough from the
+ *  leaves, the first move is searched alone, and only then are its
+ *  younger brothers forked as tasks in a ForkJoinPool, sharing the
+ *  node's alpha as they raise it.  Nearer the leaves, the search is
+ *  serial.  To be deterministic, it is a plain fail-hard alpha-beta
+ *  search with a fixed move order and no transposition table, killers,
+ *  history or selective pruning, all of which would make values depend
+ *  on timing.  A fail-hard search returns its window's bound whenever
+ *  the value is outside the window, so every node's result is the same
+ *  whatever alphas its children happened to see.  At the root, where
+ *  ties between moves must also be broken the same way every time, a
+ *  move that comes before the best one so far is searched with its
+ *  window widened by one, so that a tie with the best is seen as such
+ *  and won by the earlier move. */
+class ParallelSearch {
+
+    /** Nodes with fewer than this many plies left are searched serially. */
+    static final int SERIAL_DEPTH = 3;
+
+    /** Number of nodes a serial search visits between checks for a
+     *  cut-off above it. */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /** A magnitude greater than any value. */
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    /** A search on a pool of PARALLELISM threads. */
+    ParallelSearch(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /** Stop my threads.  I may not be used afterwards. */
+    void close() {
+        pool.shutdown();
+    }
+
+    /** Return the number of threads I search with. */
+    int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /** Search BOARD to DEPTH plies and return the best move (the first in
+     *  the order searched if several are equally good), or null if there
+     *  are no moves but pass.  BOARD is not changed. */
+    Move search(Board board, int depth) {
+        nodes.reset();
+        value = 0;
+        Root root = new Root(new Board(board), Math.max(1, depth));
+        pool.invoke(root);
+        value = root.alpha;
+        return root.bestIndex < 0 ? null : root.moves.move(root.bestIndex);
+    }
+
+    /** Return the value of the best move found by the last search, for
+     *  the side to move. */
+    int value() {
+        return value;
+    }
+
+    /** Return the number of nodes visited by the last search. */
+    long nodes() {
+        return nodes.sum();
+    }
+
+    /** Return the value of BOARD searched to DEPTH plies in the window
+     *  (ALPHA, BETA), as ALPHA if it is at most ALPHA and as BETA if at
+     *  least BETA, in parallel if DEPTH allows.  SPLIT is the split point
+     *  of the task doing the search, or null at the root. */
+    private int parallel(Board board, int depth, int alpha, int beta,
+                         SplitPoint split) {
+        if (split != null && split.cancelled()) {
+            return alpha;
+        }
+        if (depth < SERIAL_DEPTH || board.getWinner() != null) {
+            long[] count = new long[1];
+            int value = serial(board, depth, alpha, beta, split,
+                               moveLists.get(), scores.get(), count);
+            nodes.add(count[0]);
+            return value;
+        }
+        nodes.increment();
+        MoveList moves = new MoveList();
+        if (board.generateMoves(moves) == 0) { // no moves: pass
+            board.makeMove(Move.PASS_CODE);
+            int value = -parallel(board, depth - 1, -beta, -alpha, split);
+            board.unmakeMove();
+            return value;
+        }
+        order(board, moves, new int[moves.size()]);
+        board.makeMove(moves.get(0)); // the eldest brother, alone
+        int value = -parallel(board, depth - 1, -beta, -alpha, split);
+        board.unmakeMove();
+        if (value >= beta) {
+            return beta;
+        }
+        SplitPoint node = new SplitPoint(split, Math.max(alpha, value), beta);
+        List<Brother> brothers = new ArrayList<>();
+        for (int k = 1; k < moves.size(); k++) {
+            brothers.add(new Brother(board, moves.get(k), depth - 1, node));
+        }
+        ForkJoinTask.invokeAll(brothers);
+        return node.cutoff ? beta : node.alpha.get();
+    }
+
+    /** Return the value of BOARD searched to DEPTH plies in the window
+     *  (ALPHA, BETA), as for parallel, in this thread.  LISTS and SCORES
+     *  hold a move list and ordering scratch space for each depth, for
+     *  this thread's use.  Nodes visited are counted in COUNT[0].  The
+     *  result is meaningless if SPLIT or a split point above it is cut
+     *  off during the search. */
+    private int serial(Board board, int depth, int alpha, int beta,
+                       SplitPoint split, MoveList[] lists, int[][] scores,
+                       long[] count) {
+        if (depth == 0 || board.getWinner() != null) {
+            return Searcher.staticScore(board);
+        }
+        if (++count[0] % CHECK_INTERVAL == 0 && split != null
+                && split.cancelled()) {
+            return alpha;
+        }
+        MoveList moves = lists[depth];
+        if (board.generateMoves(moves) == 0) { // no moves: pass
+            board.makeMove(Move.PASS_CODE);
+            int value = -serial(board, depth - 1, -beta, -alpha, split,
+                                lists, scores, count);
+            board.unmakeMove();
+            return value;
+        }
+        order(board, moves, scores[depth]);
+        for (int k = 0; k < moves.size(); k++) {
+            board.makeMove(moves.get(k));
+            int value = -serial(board, depth - 1, -beta, -alpha, split,
+                                lists, scores, count);
+            board.unmakeMove();
+            if (value >= beta) {
+                alpha = beta;
+                break;
+            }
+            alpha = Math.max(alpha, value);
+        }
+        return alpha;
+    }
+
+    /** Sort MOVES on BOARD best first by a fixed rule: by how much they
+     *  change the piece count (captures, plus one for a clone), keeping
+     *  the generated order among equals.  SCORES is scratch space. */
+    private static void order(Board board, MoveList moves, int[] scores) {
+        for (int k = 0; k < moves.size(); k++) {
+            int code = moves.get(k);
+            scores[k] = 2 * board.captures(code) + (Board.isClone(code) ? 1 : 0);
+        }
+        for (int k = 1; k < moves.size(); k++) { // stable insertion sort
+            for (int j = k; j > 0 && scores[j] > scores[j - 1]; j--) {
+                moves.swap(j, j - 1);
+                int score = scores[j];
+                scores[j] = scores[j - 1];
+                scores[j - 1] = score;
+            }
+        }
+    }
+
+    /** The shared state of the brothers being searched in parallel at one
+     *  node: the best value so far (the brothers' alpha), and whether one
+     *  of them has reached beta, so that the rest need not finish. */
+    private static class SplitPoint {
+
+        /** A split point below PARENT with window (ALPHA, BETA). */
+        SplitPoint(SplitPoint parent, int alpha, int beta) {
+            this.parent = parent;
+            this.alpha = new AtomicInteger(alpha);
+            this.beta = beta;
+        }
+
+        /** Record that a brother's value is VALUE. */
+        void update(int value) {
+            if (value >= beta) {
+                cutoff = true;
+            } else {
+                alpha.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        /** Return true iff I or a split point above me has been cut off,
+         *  so that my results no longer matter. */
+        boolean cancelled() {
+            for (SplitPoint p = this; p != null; p = p.parent) {
+                if (p.cutoff) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** The split point of the task I am searched in, or null. */
+        private final SplitPoint parent;
+        /** The best value of my brothers so far, at least my alpha. */
+        private final AtomicInteger alpha;
+        /** My beta. */
+        private final int beta;
+        /** True iff a brother has reached beta. */
+        private volatile boolean cutoff;
+    }
+
+    /** The search of one younger brother at a split point, on its own
+     *  copy of the board. */
+    private class Brother extends RecursiveAction {
+
+        /** The search of the move with code MOVE on BOARD to DEPTH plies,
+         *  as a brother at SPLIT. */
+        Brother(Board board, int move, int depth, SplitPoint split) {
+            this.board = new Board(board);
+            this.move = move;
+            this.depth = depth;
+            this.split = split;
+        }
+
+        @Override
+        protected void compute() {
+            if (split.cancelled()) {
+                return;
+            }
+            board.makeMove(move);
+            int alpha = split.alpha.get();
+            split.update(-parallel(board, depth, -split.beta, -alpha, split));
+        }
+
+        /** My copy of the board. */
+        private final Board board;
+        /** My move and depth. */
+        private final int move, depth;
+        /** My split point. */
+        private final SplitPoint split;
+        private static final long serialVersionUID = 1L;
+    }
+
+    /** The search of the root, which also records the best move, breaking
+     *  ties in favor of the first. */
+    private class Root extends RecursiveAction {
+
+        /** The search of BOARD to DEPTH. */
+        Root(Board board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (board.generateMoves(moves) == 0) {
+                return;
+            }
+            order(board, moves, new int[moves.size()]);
+            board.makeMove(moves.get(0));
+            alpha = -parallel(board, depth - 1, -INFINITY, INFINITY, null);
+            board.unmakeMove();
+            bestIndex = 0;
+            List<RecursiveAction> brothers = new ArrayList<>();
+            for (int k = 1; k < moves.size(); k++) {
+                int index = k;
+                Board copy = new Board(board);
+                brothers.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        searchBrother(copy, index);
+                    }
+                });
+            }
+            ForkJoinTask.invokeAll(brothers);
+        }
+
+        /** Search root move K on BOARD, a copy of the root position, and
+         *  record it if it is the best so far. */
+        private void searchBrother(Board board, int k) {
+            int lower;
+            synchronized (this) {
+                lower = k < bestIndex ? alpha - 1 : alpha;
+            }
+            board.makeMove(moves.get(k));
+            int value = -parallel(board, depth - 1, -INFINITY, -lower, null);
+            synchronized (this) {
+                if (value > alpha
+                        || (value == alpha && value > lower && k < bestIndex)) {
+                    alpha = value;
+                    bestIndex = k;
+                }
+            }
+        }
+
+        /** The root position. */
+        private final Board board;
+        /** The depth to search to. */
+        private final int depth;
+        /** The root moves, in the order searched. */
+        private final MoveList moves = new MoveList();
+        /** The value of the best root move so far. */
+        private int alpha;
+        /** The index in moves of the best root move so far, or -1. */
+        private int bestIndex = -1;
+        private static final long serialVersionUID = 1L;
+    }
+
+    /** Move lists for the serial searches of each thread, by depth. */
+    private final ThreadLocal<MoveList[]> moveLists =
+        ThreadLocal.withInitial(() -> {
+            MoveList[] lists = new MoveList[SERIAL_DEPTH + 1];
+            for (int d = 0; d <= SERIAL_DEPTH; d++) {
+                lists[d] = new MoveList();
+            }
+            return lists;
+        });
+
+    /** Ordering scratch space for the serial searches of each thread. */
+    private final ThreadLocal<int[][]> scores = ThreadLocal.withInitial(
+        () -> new int[SERIAL_DEPTH + 1][MoveList.MAX_MOVES]);
+
+    /** The threads. */
+    private final ForkJoinPool pool;
+    /** Nodes visited by the current search. */
+    private final LongAdder nodes = new LongAdder();
+    /** The value found by the last search. */
+    private int value;
+}
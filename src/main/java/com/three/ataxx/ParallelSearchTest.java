@@ -0,0 +1,37 @@
+package com.three.ataxx;
+
+import org.junit.Test;
+
+import static com.three.ataxx.TestHelper.*;
+import static org.junit.Assert.assertEquals;
+
+public class ParallelSearchTest {
+
+    @Test
+    public void testSameResultForAnyThreads() {
+        Board b = position("a7-b6", "a1-b2", "g1-f2", "g7-f6", "b6-c5");
+        ParallelSearch one = new ParallelSearch(1);
+        ParallelSearch four = new ParallelSearch(4);
+        for (int depth = 1; depth <= 5; depth++) {
+            Move move = one.search(b, depth);
+            int value = one.value();
+            for (int trial = 0; trial < 3; trial++) {
+                assertEquals(move, four.search(b, depth));
+                assertEquals(value, four.value());
+            }
+        }
+        one.close();
+        four.close();
+    }
+
+    @Test
+    public void testMinimaxValue() {
+        Board b = position("a7-a6", "g7-f7", "g1-e2", "a1-c3");
+        ParallelSearch search = new ParallelSearch(3);
+        for (int depth = 1; depth <= 4; depth++) {
+            search.search(b, depth);
+            assertEquals(minimax(b, depth), search.value());
+        }
+        search.close();
+    }
+}
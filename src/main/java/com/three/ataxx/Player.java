@@ -34,6 +34,12 @@ abstract class Player {
      *  board.nextMove() == mySate() and that the getAtaxxGame is not over. */
     abstract String getAtaxxMove();
 
+    /** Stop any work I am doing in the background, as the game I was
+     *  thinking ahead in is over or I am no longer playing.  I may still
+     *  be asked for moves afterwards.  By default, does nothing. */
+    void stop() {
+    }
+
     /** The getAtaxxGame I am playing in. */
     private final Game ataxxGame;
     /** The state of my pieces. */
@@ -0,0 +1,113 @@
+package com.three.ataxx;
+
+import java.util.SplittableRandom;
+
+import static com.three.ataxx.PieceState.*;
+
+/** Random playouts to the end of the game, for Monte Carlo search.
+ *
+ *  A playout works on its own copy of the three bitboards of a position
+ *  in local variables, rather than on a Board: nothing is allocated,
+ *  and there is no undo stack, hash key or positional sum to keep up to
+ *  date.  Each move is drawn uniformly from the moves Board.generateMoves
+ *  would give (one clone into each empty square next to the side to
+ *  move, and every jump), counted and picked straight from the masks of
+ *  origins and destinations, without listing them.  The rules are those
+ *  of Board: a side with no moves passes, and the game ends when
+ *  neither side can move, a side has no pieces, or
+ *  Board.CONSEC_JUMP_LIMIT jumps have been made in a row.
+ *
+ *  A Rollout has its own random number generator and is meant for the
+ *  use of one thread. */
+class Rollout {
+
+    /** A rollout whose moves are drawn from RANDOM. */
+    Rollout(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /** Play the position on BOARD out at random, and return the winner
+     *  (EMPTY for a draw).  BOARD is not changed. */
+    PieceState play(Board board) {
+        if (board.getWinner() != null) {
+            return board.getWinner();
+        }
+        long red = board.pieces(RED), blue = board.pieces(BLUE);
+        long open = Board.ALL_SQUARES & ~board.blockBits();
+        boolean redToMove = board.nextMove() == RED;
+        int jumps = board.getConsecJumpNums();
+        while (true) {
+            long own = redToMove ? red : blue;
+            long opp = redToMove ? blue : red;
+            long empty = open & ~(red | blue);
+            if (own == 0 || opp == 0 || jumps >= Board.CONSEC_JUMP_LIMIT) {
+                break;
+            }
+            long clones = Board.grow(own) & empty;
+            int jumpCount = 0;
+            if ((Board.reach(own) & empty) != 0) {
+                for (long m = own; m != 0; m &= m - 1) {
+                    int from = Long.numberOfTrailingZeros(m);
+                    jumpCount += Long.bitCount(Board.JUMP_RING[from] & empty);
+                }
+            }
+            int cloneCount = Long.bitCount(clones);
+            if (cloneCount + jumpCount == 0) {
+                if ((Board.reach(opp) & empty) == 0) {
+                    break; // neither side can move
+                }
+                redToMove = !redToMove; // pass
+                continue;
+            }
+            int pick = random.nextInt(cloneCount + jumpCount);
+            int to;
+            if (pick < cloneCount) {
+                to = nthBit(clones, pick);
+                jumps = 0;
+            } else {
+                pick -= cloneCount;
+                long m = own;
+                int from;
+                long targets;
+                while (true) {
+                    from = Long.numberOfTrailingZeros(m);
+                    targets = Board.JUMP_RING[from] & empty;
+                    int n = Long.bitCount(targets);
+                    if (pick < n) {
+                        break;
+                    }
+                    pick -= n;
+                    m &= m - 1;
+                }
+                to = nthBit(targets, pick);
+                own &= ~(1L << from);
+                jumps += 1;
+            }
+            long flipped = Board.CLONE_RING[to] & opp;
+            own |= (1L << to) | flipped;
+            opp &= ~flipped;
+            if (redToMove) {
+                red = own;
+                blue = opp;
+            } else {
+                blue = own;
+                red = opp;
+            }
+            redToMove = !redToMove;
+        }
+        int diff = Long.bitCount(red) - Long.bitCount(blue);
+        return diff > 0 ? RED : diff < 0 ? BLUE : EMPTY;
+    }
+
+    /** Return the bit number of the Nth (from 0) lowest set bit of MASK,
+     *  which has more than N. */
+    private static int nthBit(long mask, int n) {
+        for (; n > 0; n--) {
+            mask &= mask - 1;
+        }
+        return Long.numberOfTrailingZeros(mask);
+    }
+
+    /** The source of my moves. */
+    private final SplittableRandom random;
+}
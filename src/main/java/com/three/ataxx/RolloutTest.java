@@ -0,0 +1,54 @@
+package com.three.ataxx;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RolloutTest {
+
+    /** A playout of BOARD on the board itself, drawing moves from RANDOM
+     *  in the same way as Rollout. */
+    private static PieceState reference(Board board, SplittableRandom random) {
+        Board b = new Board(board);
+        MoveList moves = new MoveList();
+        while (b.getWinner() == null) {
+            if (b.generateMoves(moves) == 0) {
+                b.makeMove(Move.PASS_CODE);
+            } else {
+                b.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+        return b.getWinner();
+    }
+
+    @Test
+    public void testSameAsBoard() {
+        Board board = new Board();
+        board.setBlock('c', '3');
+        board.createMove("a7-b6");
+        String before = board.toString();
+        for (long seed = 0; seed < 200; seed++) {
+            Rollout rollout = new Rollout(new SplittableRandom(seed));
+            assertEquals(reference(board, new SplittableRandom(seed)),
+                         rollout.play(board));
+        }
+        assertEquals(before, board.toString());
+    }
+
+    @Test
+    public void testFinishedGame() {
+        Board board = new Board();
+        MoveList moves = new MoveList();
+        while (board.getWinner() == null) {
+            if (board.generateMoves(moves) == 0) {
+                board.makeMove(Move.PASS_CODE);
+            } else {
+                board.makeMove(moves.get(0));
+            }
+        }
+        Rollout rollout = new Rollout(new SplittableRandom(1));
+        assertEquals(board.getWinner(), rollout.play(board));
+    }
+}
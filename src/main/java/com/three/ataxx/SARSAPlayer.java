@@ -17,7 +17,7 @@ class SARSAPlayer extends Player { // 这是一个基于强化学习-SARSA算法
     private static final double DISCOUNT_FACTOR = 0.9;
     private static final double EXPLORATION_RATE = 0.1;
 
-    private final Map<String, Map<Move, Double>> qTable;
+    private final Map<BoardKey, Map<Move, Double>> qTable;
 
     private static final String MODEL_FILE_PATH = "src/main/java/com/three/ataxx/Q.dat";
 
@@ -58,7 +58,7 @@ class SARSAPlayer extends Player { // 这是一个基于强化学习-SARSA算法
         Board b = new Board(getAtaxxBoard());
         lastFoundMove = null;
 
-        String state = mapStateToIndex(b);
+        BoardKey state = mapStateToIndex(b);
         Map<Move, Double> qValues = getQValues(b);
         ArrayList<Move> possibleMoves = possibleMoves(b, getMyState());
 
@@ -67,8 +67,9 @@ class SARSAPlayer extends Player { // 这是一个基于强化学习-SARSA算法
             // Randomly select a move
             lastFoundMove = possibleMoves.get((int) (Math.random() * possibleMoves.size()));
         } else {
-            // Select the move with maximum Q-value
-            lastFoundMove = Collections.max(qValues.entrySet(), Comparator.comparingDouble(Map.Entry::getValue)).getKey();
+            // Select the move with maximum Q-value (kept for the canonical form of b, so map it back)
+            Move best = Collections.max(qValues.entrySet(), Comparator.comparingDouble(Map.Entry::getValue)).getKey();
+            lastFoundMove = Symmetry.move(best, Symmetry.inverse(b.canonicalTransform()));
         }
 
         // Update Q-table
@@ -93,6 +94,9 @@ class SARSAPlayer extends Player { // 这是一个基于强化学习-SARSA算法
     /** The move found by the last call to the findMove method above. */
     private Move lastFoundMove;
 
+    /** Reusable list for generating moves. */
+    private final MoveList moveList = new MoveList();
+
     // helper function for SARSAPlayer
     /**
      * Defines how the agent looks for possible actions
@@ -102,52 +106,14 @@ class SARSAPlayer extends Player { // 这是一个基于强化学习-SARSA算法
      */
     private ArrayList<Move> possibleMoves(Board board, PieceState myColor) {
         ArrayList<Move> possibleMoves = new ArrayList<>();
-
-//        int beginIndex = Board.index('a', '1');
-//        int endIndex = Board.index('g', '7');
-//        for (int i = beginIndex; i <= endIndex; i++) {
-//            if (board.getContent(i) == myColor) {
-//                ArrayList<Move> addMoves = assistPossibleMoves(board, i);
-//                possibleMoves.addAll(addMoves);
-//            }
-//        }
-
-        for (char row = '7'; row >= '1'; row--) { // iterate the board
-            for (char col = 'a'; col <= 'g'; col++) {
-                int index = Board.index(col, row); // get the index
-                if (board.getContent(index) == myColor) { // if it is my color then find all possible moves around
-                    ArrayList<Move> addMoves
-                            = assistPossibleMoves(board, row, col);
-                    possibleMoves.addAll(addMoves);
-                }
-            }
+        if (board.nextMove() != myColor) { // only the side to move has legal moves
+            return possibleMoves;
         }
-        return possibleMoves;
-    }
-
-    /**
-     * Defines how the agent looks for possible actions
-     * @param board the current board
-     * @param row the row of the piece
-     * @param col the column of the piece
-     * @return a list of possible moves
-     */
-    private ArrayList<Move> assistPossibleMoves(Board board, char row, char col) {
-        ArrayList<Move> assistPossibleMoves = new ArrayList<>();
-
-        for (int i = -2; i <= 2; i++) { // search all possible moves around two steps
-            for (int j = -2; j <= 2; j++) {
-                if (i != 0 || j != 0) {
-                    char row2 = (char) (row + j); // get the row and col of the possible move
-                    char col2 = (char) (col + i);
-                    Move currMove = Move.move(col, row, col2, row2); // create a move
-                    if (board.moveLegal(currMove)) { // if it is legal then add it to the list
-                        assistPossibleMoves.add(currMove);
-                    }
-                }
-            }
+        board.generateMoves(moveList);
+        for (int k = 0; k < moveList.size(); k++) {
+            possibleMoves.add(moveList.move(k));
         }
-        return assistPossibleMoves;
+        return possibleMoves;
     }
 
     /**
@@ -175,20 +141,14 @@ class SARSAPlayer extends Player { // 这是一个基于强化学习-SARSA算法
 
     /**
      * The function should map a state (in this case, the chessboard) to an index of the Q table.
-     * You need to decide how to encode the state of the board into a unique string or number that you can look up in the Q table.
+     * The state is encoded as the packed BoardKey (pieces, blocks and side to move in two longs) of the
+     * canonical form of the board, so that all 8 rotations and reflections of a position share one entry.
+     * The moves of that entry are likewise kept in the canonical frame; see toCanonical.
      * @param board the current board
      * @return the index of the Q table
      */
-    private String mapStateToIndex(Board board) {
-        StringBuilder sb = new StringBuilder();
-
-        int beginIndex = Board.index('a', '1');
-        int endIndex = Board.index('g', '7');
-
-        for (int i = beginIndex; i <= endIndex; i++) {
-                sb.append(board.getContent(i).ordinal());
-            }
-        return sb.toString();
+    private BoardKey mapStateToIndex(Board board) {
+        return board.canonicalKey();
     }
 
 
@@ -200,13 +160,13 @@ class SARSAPlayer extends Player { // 这是一个基于强化学习-SARSA算法
      * @return a map of moves and their Q values
      */
     private Map<Move, Double> getQValues(Board board) {
-        String stateIndex = mapStateToIndex(board);
+        BoardKey stateIndex = mapStateToIndex(board);
         Map<Move, Double> qValues = qTable.get(stateIndex);
         if (qValues == null) {
             // If this state is not in the Q table, create a new entry
             qValues = new HashMap<>();
             for (Move move : possibleMoves(board, getMyState())) {
-                qValues.put(move, 0.0); // Initialize Q values to 0
+                qValues.put(toCanonical(board, move), 0.0); // Initialize Q values to 0
             }
             qTable.put(stateIndex, qValues);
         }
@@ -224,7 +184,28 @@ class SARSAPlayer extends Player { // 这是一个基于强化学习-SARSA算法
         Map<Move, Double> qValues = getQValues(board);
         // If this move is not in the Q values, add it
         // Initialize Q value to 0
-        return qValues.computeIfAbsent(move, k -> 0.0);
+        return qValues.computeIfAbsent(toCanonical(board, move), k -> 0.0);
+    }
+
+    /**
+     * Map a move on a board to the same move on the canonical form of the board,
+     * which is how moves are stored in the Q table.
+     * A clone is keyed by its destination: its origin is taken again in the canonical
+     * position, as the first piece next to the destination there (as Board.generateClones does),
+     * so that the images of one position under all 8 symmetries give the same key.
+     * @param board the board the move is made on
+     * @param move the move
+     * @return the corresponding move in the canonical frame
+     */
+    static Move toCanonical(Board board, Move move) {
+        int t = board.canonicalTransform();
+        Move image = Symmetry.move(move, t);
+        if (!image.isClone()) {
+            return image;
+        }
+        int to = Move.toSquare(image.code());
+        long own = Symmetry.transform(board.pieces(board.nextMove()), t);
+        return Move.byId(Move.id(Move.code(Long.numberOfTrailingZeros(Board.CLONE_RING[to] & own), to)));
     }
 
 
@@ -265,7 +246,7 @@ class SARSAPlayer extends Player { // 这是一个基于强化学习-SARSA算法
      */
     private void setQValue(Board board, Move move, double value) {
         Map<Move, Double> qValues = getQValues(board);
-        qValues.put(move, value);
+        qValues.put(toCanonical(board, move), value);
     }
 
 
@@ -313,11 +294,11 @@ class SARSAPlayer extends Player { // 这是一个基于强化学习-SARSA算法
      * @return the loaded Q table
      */
     @SuppressWarnings("unchecked")
-    Map<String, Map<Move, Double>> loadModel() {
+    Map<BoardKey, Map<Move, Double>> loadModel() {
         try {
             FileInputStream fileIn = new FileInputStream(MODEL_FILE_PATH);
             ObjectInputStream objectIn = new ObjectInputStream(fileIn);
-            Map<String, Map<Move, Double>> loadedQTable = (Map<String, Map<Move, Double>>) objectIn.readObject();
+            Map<BoardKey, Map<Move, Double>> loadedQTable = (Map<BoardKey, Map<Move, Double>>) objectIn.readObject();
             objectIn.close();
             fileIn.close();
             return loadedQTable;
@@ -1,7 +1,10 @@
 package com.three.ataxx;
 
+import java.util.Random;
+
 import org.junit.Test;
 
+import static com.three.ataxx.PieceState.*;
 import static org.junit.Assert.assertEquals;
 
 public class ScoreTest {
@@ -38,4 +41,56 @@ public class ScoreTest {
         assertEquals("4 red vs 2 blue", b2.getScore());
     }
 
+    /** The weighted score of COLOR on B, computed from scratch. */
+    private static int weighted(Board b, int[] weights, PieceState color) {
+        int score = 0;
+        for (int sq = 0; sq < Board.ONESIDE * Board.ONESIDE; sq++) {
+            if (b.getContent(Board.indexOf(sq)) == color) {
+                score += weights[sq];
+            }
+        }
+        return score;
+    }
+
+    @Test
+    public void testWeightedScore() {
+        Board b = new Board();
+        assertEquals(1 + 1, b.CountWeightedScoreByColor(RED)); // corners
+        b.createMove("a7-b6");
+        assertEquals(1 + 1 + 2, b.CountWeightedScoreByColor(RED));
+        b.createMove("a1-c3");
+        assertEquals(1 + 3, b.CountWeightedScoreByColor(BLUE));
+    }
+
+    @Test
+    public void testWeightedScoreIncremental() {
+        int[] weights = new int[Board.ONESIDE * Board.ONESIDE];
+        for (int sq = 0; sq < weights.length; sq++) {
+            weights[sq] = sq % 5 - 1;
+        }
+        Board b = new Board();
+        b.setBlock('c', '3');
+        b.setSquareWeights(weights);
+        Random random = new Random(7);
+        MoveList moves = new MoveList();
+        for (int n = 0; n < 60 && b.getWinner() == null; n++) {
+            if (b.generateMoves(moves) == 0) {
+                b.makeMove(Move.PASS_CODE);
+            } else {
+                b.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+            assertEquals(weighted(b, weights, RED),
+                         b.CountWeightedScoreByColor(RED));
+            assertEquals(weighted(b, weights, BLUE),
+                         new Board(b).CountWeightedScoreByColor(BLUE));
+        }
+        while (b.moveNums() > 0) {
+            b.unmakeMove();
+            assertEquals(weighted(b, weights, RED),
+                         b.CountWeightedScoreByColor(RED));
+            assertEquals(weighted(b, weights, BLUE),
+                         b.CountWeightedScoreByColor(BLUE));
+        }
+    }
+
 }
@@ -0,0 +1,139 @@
+package com.three.ataxx;
+
+/** Counts describing one search for a move, for monitoring and tuning:
+ *  nodes visited, cut-offs, transposition-table lookups, playouts (for
+ *  Monte Carlo searches), the depth reached and the time taken.
+ *
+ *  Each thread of a search keeps its own plain counters, which cost
+ *  nothing to update; when the search is over, they are added into one
+ *  SearchStats with add, and the result is published (see
+ *  Game.setStatsListener).  Counts that a search does not keep are 0. */
+final class SearchStats {
+
+    /** Empty statistics for a search by ENGINE (a short name such as
+     *  "alpha-beta" or "mcts"). */
+    SearchStats(String engine) {
+        this.engine = engine;
+    }
+
+    /** Add the counts of one thread: NODES nodes visited, CUTOFFS
+     *  cut-offs, FIRSTMOVECUTOFFS of them by the first move searched,
+     *  TABLEPROBES lookups in the transposition table, TABLEHITS of which
+     *  found their position, and PLAYOUTS playouts. */
+    void add(long nodes, long cutoffs, long firstMoveCutoffs,
+             long tableProbes, long tableHits, long playouts) {
+        this.nodes += nodes;
+        this.cutoffs += cutoffs;
+        this.firstMoveCutoffs += firstMoveCutoffs;
+        this.tableProbes += tableProbes;
+        this.tableHits += tableHits;
+        this.playouts += playouts;
+    }
+
+    /** Record that the search reached depth DEPTH and took NANOS
+     *  nanoseconds. */
+    void finish(int depth, long nanos) {
+        this.depth = depth;
+        this.nanos = nanos;
+    }
+
+    /** Return the name of the engine that searched. */
+    String engine() {
+        return engine;
+    }
+
+    /** Return the number of nodes visited. */
+    long nodes() {
+        return nodes;
+    }
+
+    /** Return the number of cut-offs. */
+    long cutoffs() {
+        return cutoffs;
+    }
+
+    /** Return the number of cut-offs by the first move searched. */
+    long firstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /** Return the number of transposition-table lookups. */
+    long tableProbes() {
+        return tableProbes;
+    }
+
+    /** Return the number of those that found their position. */
+    long tableHits() {
+        return tableHits;
+    }
+
+    /** Return the number of playouts. */
+    long playouts() {
+        return playouts;
+    }
+
+    /** Return the depth reached: the last completed iteration of an
+     *  alpha-beta search, or the deepest node of a Monte Carlo tree. */
+    int depth() {
+        return depth;
+    }
+
+    /** Return the time taken, in milliseconds. */
+    double millis() {
+        return nanos / 1e6;
+    }
+
+    /** Return the number of nodes visited per second. */
+    double nodesPerSecond() {
+        return perSecond(nodes);
+    }
+
+    /** Return the number of playouts per second. */
+    double playoutsPerSecond() {
+        return perSecond(playouts);
+    }
+
+    /** Return the fraction of cut-offs made by the first move searched,
+     *  a measure of move ordering (0 if there were none). */
+    double firstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /** Return the fraction of transposition-table lookups that found
+     *  their position (0 if there were none). */
+    double tableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    /** Return COUNT divided by the time taken in seconds, or 0 if no
+     *  time was recorded. */
+    private double perSecond(long count) {
+        return nanos == 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        if (playouts > 0) {
+            return String.format("%s: %d playouts (%.0f/s), %d nodes, "
+                                 + "depth %d, %.0f ms",
+                                 engine, playouts, playoutsPerSecond(), nodes,
+                                 depth, millis());
+        }
+        return String.format("%s: %d nodes (%.0f/s), depth %d, "
+                             + "%.1f%% first-move cut-offs, "
+                             + "%.1f%% table hits, %.0f ms",
+                             engine, nodes, nodesPerSecond(), depth,
+                             100 * firstMoveCutoffRate(), 100 * tableHitRate(),
+                             millis());
+    }
+
+    /** The engine that searched. */
+    private final String engine;
+    /** The counts. */
+    private long nodes, cutoffs, firstMoveCutoffs, tableProbes, tableHits,
+        playouts;
+    /** The depth reached. */
+    private int depth;
+    /** The time taken, in nanoseconds. */
+    private long nanos;
+}
@@ -0,0 +1,46 @@
+package com.three.ataxx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static com.three.ataxx.TestHelper.game;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearchStatsTest {
+
+    @Test
+    public void testListenerOncePerMove() {
+        Game game = game();
+        List<PieceState> players = new ArrayList<>();
+        List<SearchStats> reports = new ArrayList<>();
+        game.setStatsListener((player, stats) -> {
+            players.add(player);
+            reports.add(stats);
+        });
+        AIPlayer red = new AIPlayer(game, PieceState.RED, 0);
+        red.setMoveTime(Long.MAX_VALUE / 2);
+        red.setMaxDepth(3);
+        MCTSPlayer blue = new MCTSPlayer(game, PieceState.BLUE, 0);
+        blue.setMoveTime(0);
+        blue.setPlayouts(100);
+        for (int k = 0; k < 6; k++) {
+            Player player = k % 2 == 0 ? red : blue;
+            game.getAtaxxBoard().createMove(player.getAtaxxMove());
+            assertEquals(k + 1, reports.size());
+            assertEquals(player.getMyState(), players.get(k));
+            SearchStats stats = reports.get(k);
+            assertTrue(stats.nodes() > 0);
+            if (player == red) {
+                assertEquals("alpha-beta", stats.engine());
+                assertEquals(3, stats.depth());
+            } else {
+                assertEquals("mcts", stats.engine());
+                assertEquals(100, stats.playouts());
+            }
+        }
+        assertEquals(6, game.getAtaxxBoard().moveNums());
+    }
+}
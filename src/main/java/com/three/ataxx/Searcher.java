@@ -0,0 +1,605 @@
+package com.three.ataxx;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.three.ataxx.AIPlayer.MAX_DEPTH;
+import static com.three.ataxx.PieceState.*;
+import static com.three.ataxx.TranspositionTable.*;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/** The alpha-beta search of an AIPlayer: everything one thread needs
+ *  to search, apart from the transposition table, which all of the
+ *  player's searchers share.  An AIPlayer with several threads runs one
+ *  Searcher in each (see AIPlayer.setThreads). */
+class Searcher {
+
+    /** Number of nodes searched between checks of the clock. */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /** Ordering scores (see scoreMoves): the transposition table's move
+     *  outranks captures, which outrank killers, which outrank quiet
+     *  clones, which outrank quiet jumps.  Captures are ranked by how
+     *  much they change the piece count, then by history, as are quiet
+     *  moves of one kind. */
+    private static final int TABLE_MOVE_SCORE = Integer.MAX_VALUE,
+        CAPTURE_SCORE = 1 << 29, KILLER_SCORE = 1 << 28,
+        CLONE_SCORE = 1 << 21, SWING_SHIFT = 21;
+
+    /** Limit on history scores; reaching it halves them all. */
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    /** Initial half-width of the aspiration window around the score of
+     *  the previous iteration: five pieces. */
+    private static final int ASPIRATION_WINDOW = 50;
+
+    /** Late move reductions: moves from the LMR_MIN_MOVESth on that
+     *  neither capture nor are killers are searched LMR_MIN_DEPTH or more
+     *  plies deep with one ply less (two from LMR_DEEP_MOVES on), and
+     *  again at full depth only if they beat alpha. */
+    private static final int LMR_MIN_DEPTH = 3, LMR_MIN_MOVES = 3,
+        LMR_DEEP_MOVES = 8;
+
+    /** Futility margins in pieces, by remaining depth: near the leaves,
+     *  a move is skipped if the static score plus the pieces it gains
+     *  and the margin (both times PIECE_WEIGHT) cannot reach alpha. */
+    private static final int[] FUTILITY_MARGIN = { 0, 1, 4 };
+
+    /** ProbCut: at PROBCUT_MIN_DEPTH or more plies, a search
+     *  PROBCUT_REDUCTION plies shallower that beats beta by
+     *  PROBCUT_MARGIN is taken to predict that the full one beats beta. */
+    private static final int PROBCUT_MIN_DEPTH = 5, PROBCUT_REDUCTION = 3,
+        PROBCUT_MARGIN = 50;
+
+    /** Weights of the terms of staticScore, per piece, per point of
+     *  Board.CountWeightedScoreByColor, per square a side could clone
+     *  into and per piece next to an empty square.  Matches at 100 ms a
+     *  move favor pieces away from the center (where more squares are
+     *  around them to capture from) and few pieces open to capture, and
+     *  found no gain from mobility. */
+    private static final int PIECE_WEIGHT = 10, CENTER_WEIGHT = -1,
+        MOBILITY_WEIGHT = 0, FRONTIER_WEIGHT = 2;
+
+    /** A position magnitude indicating a win (for the side to move if
+     *  positive, for its opponent if negative). */
+    static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
+
+    /** A magnitude greater than a normal value. */
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    /** A searcher that will store its results in TABLE. */
+    Searcher(TranspositionTable table) {
+        this.table = table;
+        for (int d = 0; d <= MAX_DEPTH; d++) {
+            moveLists[d] = new MoveList();
+        }
+    }
+
+    /** Use TABLE for my results from now on. */
+    void setTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /** Turn my late move reductions, futility pruning and ProbCut on or
+     *  off, as LMR, FUTILITY and PROBCUT say (see AIPlayer.setPruning). */
+    void setPruning(boolean lmr, boolean futility, boolean probcut) {
+        lateMoveReductions = lmr;
+        futilityPruning = futility;
+        probCut = probcut;
+    }
+
+    /** Give my next search, or the current one if it is running, MOVETIME
+     *  milliseconds from now.  This may be called from another thread. */
+    void setMoveTime(long moveTime) {
+        long now = System.currentTimeMillis();
+        softDeadline = moveTime / 2 >= Long.MAX_VALUE - now ? Long.MAX_VALUE
+            : now + moveTime / 2;
+        deadline = moveTime >= Long.MAX_VALUE - now ? Long.MAX_VALUE
+            : now + moveTime;
+    }
+
+    /** Cache my static evaluations in a cache of about SIZE entries
+     *  from now on, or not at all if SIZE is 0. */
+    void setEvalCacheSize(int size) {
+        evalCache = size > 0 ? new EvalCache(size) : null;
+    }
+
+    /** Return my evaluation cache, or null if I have none. */
+    EvalCache evalCache() {
+        return evalCache;
+    }
+
+    /** Return the number of nodes my last search visited. */
+    long nodes() {
+        return nodes;
+    }
+
+    /** Add the counts of my last search to STATS. */
+    void addStatsTo(SearchStats stats) {
+        stats.add(nodes, cutoffs, firstMoveCutoffs, tableProbes, tableHits, 0);
+    }
+
+    /** Return the depth of the last iteration my last search completed. */
+    int completedDepth() {
+        return completedDepth;
+    }
+
+    /** Return the value, for the side to move, of the best move found by
+     *  the last iteration my last search completed. */
+    int value() {
+        return completedValue;
+    }
+
+    /** Return the time in nanoseconds my last search took to complete
+     *  depth DEPTH, or -1 if it did not. */
+    long timeToDepth(int depth) {
+        return depthTimes[depth];
+    }
+
+    /**
+     * Search BOARD to depths FIRSTDEPTH, FIRSTDEPTH + 1, ... until the
+     * time given by setMoveTime or MAXDEPTH run out, or until CANCEL is
+     * set, and
+     * return the best move of the last completed iteration, or null if
+     * there are no moves but pass.  Each iteration searches the previous
+     * best move first, with an aspiration window around the previous
+     * score that widens whenever the score falls outside it.  Unless
+     * HELPER, the first iteration always completes, so there is always a
+     * move to return; a later one that is stopped is abandoned.  A
+     * helper (see AIPlayer.setThreads) may be stopped at any time, and
+     * serves only to fill the shared table.
+     *
+     * @param board the board, which is searched in place and restored
+     * @param firstDepth the depth of the first iteration
+     * @param maxDepth the depth of the last iteration
+     * @param helper true iff this is a helper's search
+     * @param cancel set (from another thread) to stop the search as soon
+     *               as it can be stopped
+     * @return the best move found
+     */
+    Move search(Board board, int firstDepth, int maxDepth, boolean helper,
+                AtomicBoolean cancel) {
+        long startNanos = System.nanoTime();
+        stoppable = helper;
+        this.cancel = cancel;
+        stopped = false;
+        nodes = cutoffs = firstMoveCutoffs = tableProbes = tableHits = 0;
+        completedDepth = completedValue = 0;
+        Arrays.fill(depthTimes, -1);
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, -1);
+        }
+        ageHistory();
+        if (board.generateMoves(rootMoves) == 0) {
+            return null;
+        }
+        Move bestMove = rootMoves.move(0);
+        if (rootMoves.size() == 1) {
+            return bestMove;
+        }
+        int value = 0;
+        for (int depth = firstDepth; depth <= maxDepth; depth++) {
+            long delta = ASPIRATION_WINDOW;
+            int alpha = -INFINITY, beta = INFINITY;
+            if (depth > firstDepth && Math.abs(value) < WINNING_VALUE) {
+                alpha = value - ASPIRATION_WINDOW;
+                beta = value + ASPIRATION_WINDOW;
+            }
+            while (true) {
+                value = searchRoot(board, depth, alpha, beta);
+                if (stopped) {
+                    break;
+                }
+                if (value <= alpha) {
+                    alpha = (int) Math.max(value - delta, -INFINITY);
+                } else if (value >= beta) {
+                    beta = (int) Math.min(value + delta, INFINITY);
+                } else {
+                    break;
+                }
+                delta *= 4;
+            }
+            if (stopped) {
+                break;
+            }
+            searchFirst(rootMoves, bestMoveCode);
+            bestMove = rootMoves.move(0);
+            completedDepth = depth;
+            completedValue = value;
+            depthTimes[depth] = System.nanoTime() - startNanos;
+            stoppable = true;
+            if (Math.abs(value) >= WINNING_VALUE
+                    || System.currentTimeMillis() > softDeadline) {
+                break; // decided, or the next iteration would not finish
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Search each of the root moves of BOARD to DEPTH within the window
+     * (ALPHA, BETA) as negamax does, setting bestMoveCode to the best of
+     * them if its value is inside the window.
+     *
+     * @param board the board
+     * @param depth the depth
+     * @param alpha the alpha
+     * @param beta the beta
+     * @return the value of the best move, for the side to move
+     */
+    private int searchRoot(Board board, int depth, int alpha, int beta) {
+        int bestValue = -INFINITY;
+        for (int k = 0; k < rootMoves.size(); k++) {
+            board.makeMove(rootMoves.get(k));
+            int value;
+            if (k == 0) {
+                value = -negamax(board, depth - 1, 1, true, -beta, -alpha);
+            } else {
+                value = -negamax(board, depth - 1, 1, false, -alpha - 1, -alpha);
+                if (value > alpha && value < beta) {
+                    value = -negamax(board, depth - 1, 1, true, -beta, -alpha);
+                }
+            }
+            board.unmakeMove();
+            if (stopped) {
+                break;
+            }
+            if (value > bestValue) {
+                bestValue = value;
+                if (value > alpha) {
+                    bestMoveCode = rootMoves.get(k);
+                }
+            }
+            alpha = max(alpha, value);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return bestValue;
+    }
+
+    /**
+     * Return a heuristic value for BOARD, for the side to move.
+     *
+     * @param board the board
+     * @return a heuristic value for BOARD, for the side to move.
+     */
+    static int staticScore(Board board) {
+        PieceState winner = board.getWinner();
+        if (winner != null) {
+            int sign = board.nextMove() == RED ? 1 : -1;
+            return switch (winner) {
+                case RED -> sign * WINNING_VALUE; // RED wins
+                case BLUE -> -sign * WINNING_VALUE; // BLUE wins
+                default -> 0;
+            };
+        }
+        int totalScore;
+
+        // 计算分差 (positive if red is ahead, like WINNING_VALUE)
+        int diff = board.getColorNums(RED) - board.getColorNums(BLUE);
+
+        // 计算期盼中心控制力 (kept up to date by the board)
+        int centerDiff = board.CountWeightedScoreByColor(RED)
+            - board.CountWeightedScoreByColor(BLUE);
+
+        int mobilityDiff = board.mobility(RED) - board.mobility(BLUE);
+        int frontierDiff = board.frontier(RED) - board.frontier(BLUE);
+
+        // 计算总分
+        totalScore = diff * PIECE_WEIGHT + centerDiff * CENTER_WEIGHT
+            + mobilityDiff * MOBILITY_WEIGHT - frontierDiff * FRONTIER_WEIGHT;
+        return board.nextMove() == RED ? totalScore : -totalScore;
+    }
+
+    /** Return staticScore(BOARD), from my evaluation cache if I have one
+     *  and it has BOARD. */
+    private int evaluate(Board board) {
+        return evalCache == null ? staticScore(board)
+            : evalCache.score(board, board.hashKey());
+    }
+
+    /**
+     * Move the move with packed code CODE, if MOVES has it, to the front
+     * of MOVES.
+     *
+     * @param moves the moves
+     * @param code the code of the move to search first
+     */
+    private static void searchFirst(MoveList moves, int code) {
+        for (int k = 0; k < moves.size(); k++) {
+            if (moves.get(k) == code) {
+                moves.moveToFront(k);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Set SCORES[k] to the ordering score of the Kth move in MOVES, for
+     * BOARD at ply PLY, where TABLECODE is the code of the best move the
+     * transposition table knows, or -1.
+     *
+     * @param board the board
+     * @param moves the moves
+     * @param scores the ordering scores
+     * @param tableCode the move from the transposition table
+     * @param ply the ply
+     */
+    private void scoreMoves(Board board, MoveList moves, int[] scores,
+                            int tableCode, int ply) {
+        for (int k = 0; k < moves.size(); k++) {
+            int code = moves.get(k);
+            int captures = board.captures(code);
+            int clone = Board.isClone(code) ? 1 : 0;
+            if (code == tableCode) {
+                scores[k] = TABLE_MOVE_SCORE;
+            } else if (captures > 0) {
+                scores[k] = CAPTURE_SCORE
+                    + ((2 * captures + clone) << SWING_SHIFT)
+                    + history[Move.id(code)];
+            } else if (code == killers[ply][0]) {
+                scores[k] = KILLER_SCORE + 1;
+            } else if (code == killers[ply][1]) {
+                scores[k] = KILLER_SCORE;
+            } else {
+                scores[k] = clone * CLONE_SCORE + history[Move.id(code)];
+            }
+        }
+    }
+
+    /**
+     * Move the highest-scoring of moves K and on in MOVES to place K,
+     * keeping SCORES parallel, and return its code.  Selecting one move
+     * at a time costs little when an early move causes a cut-off.
+     *
+     * @param moves the moves
+     * @param scores the ordering scores
+     * @param k the place
+     * @return the code of the move now at place K
+     */
+    private static int pickMove(MoveList moves, int[] scores, int k) {
+        int best = k;
+        for (int j = k + 1; j < moves.size(); j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        if (best != k) {
+            moves.swap(k, best);
+            int score = scores[k];
+            scores[k] = scores[best];
+            scores[best] = score;
+        }
+        return moves.get(k);
+    }
+
+    /**
+     * Record that the move with code CODE on BOARD caused a cut-off at
+     * ply PLY with DEPTH plies left.
+     *
+     * @param board the board, before the move
+     * @param code the move
+     * @param ply the ply
+     * @param depth the depth
+     */
+    private void recordCutoff(Board board, int code, int ply, int depth) {
+        if (board.captures(code) == 0 && killers[ply][0] != code) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = code;
+        }
+        int id = Move.id(code);
+        history[id] += depth * depth;
+        if (history[id] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    /** Halve all history scores, so that old cut-offs count for less. */
+    private void ageHistory() {
+        for (int id = 0; id < history.length; id++) {
+            history[id] >>= 1;
+        }
+    }
+
+    /**
+     *  Principal variation search in negamax form: values are for the
+     *  side to move, and a child's value is the negation of its own.  The
+     *  first move (the expected best) is searched with the full window
+     *  (ALPHA, BETA); the rest are only tested against ALPHA with a null
+     *  window, and searched again with the full window if they beat it.
+     *  Away from the principal variation, the search is selective when
+     *  the switches (see setPruning) allow: late quiet moves are searched
+     *  less deeply first, hopeless moves near the leaves are skipped, and
+     *  a shallow search can cut the node off early.
+     *  Moves are searched in the order given by scoreMoves, and results
+     *  are looked up in and stored into the transposition table as
+     *  bounds.  A side with no moves passes.  Returns 0 at once if the
+     *  search has run out of time.
+     *
+     *  @param board the board
+     *  @param depth the depth
+     *  @param ply the number of moves made since the root
+     *  @param pvNode true iff the window may be wider than a null window
+     *  @param alpha the alpha
+     *  @param beta the beta
+     *  @return the value
+     */
+    private int negamax(Board board, int depth, int ply, boolean pvNode,
+                        int alpha, int beta) {
+        if (depth == 0 || board.getWinner() != null) {
+            return evaluate(board);
+        }
+        if (++nodes % CHECK_INTERVAL == 0 && stoppable
+                && (cancel.get() || System.currentTimeMillis() >= deadline)) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        long key = board.hashKey();
+        long entry = table.probe(key);
+        tableProbes += 1;
+        if (entry != MISS) {
+            tableHits += 1;
+        }
+        if (entry != MISS && depth(entry) >= depth) {
+            int score = score(entry);
+            int bound = bound(entry);
+            if (bound == EXACT
+                    || (bound == LOWER && score >= beta)
+                    || (bound == UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+        int alpha0 = alpha;
+        int bestCode = -1;
+        MoveList listOfMoves = moveLists[depth];
+        if (board.generateMoves(listOfMoves) == 0) { // no moves: pass
+            board.makeMove(Move.PASS_CODE);
+            int value = -negamax(board, depth - 1, ply + 1, pvNode, -beta, -alpha);
+            board.unmakeMove();
+            return value;
+        }
+        boolean selective = !pvNode && Math.abs(alpha) < WINNING_VALUE - 1
+            && Math.abs(beta) < WINNING_VALUE - 1;
+        if (selective && probCut && depth >= PROBCUT_MIN_DEPTH) {
+            int probBeta = beta + PROBCUT_MARGIN;
+            int value = negamax(board, depth - PROBCUT_REDUCTION, ply, false,
+                                probBeta - 1, probBeta);
+            if (value >= probBeta && !stopped) {
+                return beta;
+            }
+        }
+        int futilityBase = -INFINITY;
+        if (selective && futilityPruning && depth < FUTILITY_MARGIN.length) {
+            futilityBase = evaluate(board)
+                + FUTILITY_MARGIN[depth] * PIECE_WEIGHT;
+        }
+        int[] scores = moveScores[depth];
+        scoreMoves(board, listOfMoves, scores,
+                   entry != MISS && moveId(entry) != NO_MOVE
+                   ? Move.codeOf(moveId(entry)) : -1, ply);
+        int bestValue = -INFINITY;
+        for (int k = 0; k < listOfMoves.size(); k++) {
+            int move = pickMove(listOfMoves, scores, k);
+            if (k > 0 && futilityBase > -INFINITY) {
+                int gain = 2 * board.captures(move) + (Board.isClone(move) ? 1 : 0);
+                int futilityValue = futilityBase + gain * PIECE_WEIGHT;
+                if (futilityValue <= alpha) { // hopeless: skip it
+                    bestValue = max(bestValue, futilityValue);
+                    continue;
+                }
+            }
+            board.makeMove(move); // search in place, then take the move back
+            int value;
+            if (k == 0) {
+                value = -negamax(board, depth - 1, ply + 1, pvNode, -beta, -alpha);
+            } else {
+                int reduction = 0;
+                if (selective && lateMoveReductions && depth >= LMR_MIN_DEPTH
+                        && k >= LMR_MIN_MOVES && scores[k] < KILLER_SCORE) {
+                    reduction = k >= LMR_DEEP_MOVES && depth > LMR_MIN_DEPTH ? 2 : 1;
+                }
+                value = -negamax(board, depth - 1 - reduction, ply + 1, false,
+                                 -alpha - 1, -alpha);
+                if (reduction > 0 && value > alpha) { // reduced scout failed high
+                    value = -negamax(board, depth - 1, ply + 1, false,
+                                     -alpha - 1, -alpha);
+                }
+                if (value > alpha && value < beta) { // scout failed high
+                    value = -negamax(board, depth - 1, ply + 1, true,
+                                     -beta, -alpha);
+                }
+            }
+            board.unmakeMove();
+            if (value > bestValue) {
+                bestValue = value; // update the best value
+                bestCode = move;
+            }
+            alpha = max(alpha, value);
+            if (alpha >= beta) { // cut-off
+                cutoffs += 1;
+                if (k == 0) {
+                    firstMoveCutoffs += 1;
+                }
+                if (!stopped) {
+                    recordCutoff(board, move, ply, depth);
+                }
+                break;
+            }
+        }
+        if (!stopped) {
+            int bound = bestValue <= alpha0 ? UPPER
+                : bestValue >= beta ? LOWER : EXACT;
+            table.store(key, depth, bound, bestValue, Move.id(bestCode));
+        }
+        return bestValue;
+    }
+
+    /** One reusable move list for each remaining search depth. */
+    private final MoveList[] moveLists = new MoveList[MAX_DEPTH + 1];
+
+    /** Ordering scores of the moves in moveLists. */
+    private final int[][] moveScores = new int[MAX_DEPTH + 1][MoveList.MAX_MOVES];
+
+    /** Two killer moves (codes, or -1) for each ply: recent moves that
+     *  caused a cut-off without capturing, so likely to do so again. */
+    private final int[][] killers = new int[MAX_DEPTH + 1][2];
+
+    /** History scores, by move ID: how often and how deep each move has
+     *  caused a cut-off. */
+    private final int[] history = new int[Move.NUM_IDS];
+
+    /** The moves at the root, best first as of the last completed
+     *  iteration of search. */
+    private final MoveList rootMoves = new MoveList();
+
+    /** Time (as for System.currentTimeMillis) at which the current
+     *  search must stop. */
+    private volatile long deadline;
+
+    /** Time after which the current search starts no new iteration, which
+     *  would not finish by the deadline. */
+    private volatile long softDeadline;
+
+    /** True iff the current search may be stopped by the clock or by
+     *  its cancel flag (it is past its first iteration, or is a helper's). */
+    private boolean stoppable;
+
+    /** True iff the current iteration ran out of time; its results are
+     *  then meaningless and are discarded. */
+    private boolean stopped;
+
+    /** Nodes visited by the current search. */
+    private long nodes;
+
+    /** Cut-offs in the current search, those by the first move searched,
+     *  transposition-table lookups and those that found their position. */
+    private long cutoffs, firstMoveCutoffs, tableProbes, tableHits;
+
+    /** Depth and value of the last completed iteration of the last
+     *  search. */
+    private int completedDepth, completedValue;
+
+    /** Code of the best root move found by the last call to searchRoot. */
+    private int bestMoveCode;
+
+    /** Elapsed times, in nanoseconds, at which the last search completed
+     *  each depth, or -1. */
+    private final long[] depthTimes = new long[MAX_DEPTH + 1];
+
+    /** Set when the current search is to stop. */
+    private AtomicBoolean cancel;
+
+    /** The table shared with the other searchers for the same player. */
+    private TranspositionTable table;
+
+    /** Switches for the selective parts of the search. */
+    private boolean lateMoveReductions = true, futilityPruning = true,
+        probCut = true;
+
+    /** Static evaluations of positions I have searched, or null. */
+    private EvalCache evalCache = new EvalCache(EvalCache.DEFAULT_SIZE);
+}
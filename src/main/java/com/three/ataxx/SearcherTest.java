@@ -0,0 +1,114 @@
+package com.three.ataxx;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static com.three.ataxx.TestHelper.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearcherTest {
+
+    /** A searcher with a fresh table and no selective pruning, with no
+     *  time limit. */
+    private static Searcher fullWidth() {
+        Searcher searcher = new Searcher(new TranspositionTable(1));
+        searcher.setPruning(false, false, false);
+        searcher.setMoveTime(Long.MAX_VALUE);
+        return searcher;
+    }
+
+    @Test
+    public void testMinimaxValue() {
+        Board[] positions = {
+            position(),
+            position("a7-a6", "g7-f7", "g1-e2", "a1-c3"),
+            position("a7-b6", "a1-b2", "g1-f2", "g7-f6", "b6-c5"),
+        };
+        for (Board b : positions) {
+            Searcher searcher = fullWidth();
+            for (int depth = 1; depth <= 3; depth++) {
+                int expected = minimax(b, depth);
+                Move move = searcher.search(b, 1, depth, false,
+                                            new AtomicBoolean());
+                assertEquals(depth, searcher.completedDepth());
+                assertEquals(expected, searcher.value());
+                b.makeMove(move);
+                assertEquals(expected, -minimax(b, depth - 1));
+                b.unmakeMove();
+            }
+        }
+    }
+
+    @Test
+    public void testTimeBudget() {
+        Board b = position("a7-b6", "a1-b2", "g1-f2", "g7-f6");
+        Board copy = new Board(b);
+        Searcher searcher = new Searcher(new TranspositionTable(1));
+        searcher.setMoveTime(100);
+        Move move = searcher.search(b, 1, AIPlayer.MAX_DEPTH, false,
+                                    new AtomicBoolean());
+        assertEquals(copy, b);
+        assertTrue(b.moveLegal(move));
+        assertTrue(searcher.completedDepth() >= 1);
+        assertTrue(searcher.completedDepth() < AIPlayer.MAX_DEPTH);
+
+        // Cancelled from the start, with no deadline: the first
+        // iteration still completes, and a later one stops the search.
+        searcher.setMoveTime(Long.MAX_VALUE);
+        move = searcher.search(b, 1, AIPlayer.MAX_DEPTH, false,
+                               new AtomicBoolean(true));
+        assertTrue(b.moveLegal(move));
+        assertTrue(searcher.completedDepth() >= 1);
+        assertTrue(searcher.completedDepth() < AIPlayer.MAX_DEPTH);
+        assertEquals(copy, b);
+    }
+
+    @Test
+    public void testTableReuse() {
+        Board b = position("a7-b6", "a1-b2", "g1-f2", "g7-f6");
+        Searcher searcher = fullWidth();
+        searcher.search(b, 1, 4, false, new AtomicBoolean());
+        int value = searcher.value();
+        long nodes = searcher.nodes();
+        searcher.search(b, 1, 4, false, new AtomicBoolean());
+        SearchStats stats = new SearchStats("alpha-beta");
+        searcher.addStatsTo(stats);
+        assertEquals(value, searcher.value());
+        assertTrue(searcher.nodes() < nodes / 2);
+        assertTrue(stats.tableHits() > 0);
+    }
+
+    @Test
+    public void testMoveOrdering() {
+        Board b = position("a7-a6", "g7-f7", "g1-e2", "a1-c3");
+        Searcher searcher = fullWidth();
+        searcher.search(b, 1, 4, false, new AtomicBoolean());
+        SearchStats stats = new SearchStats("alpha-beta");
+        searcher.addStatsTo(stats);
+        assertTrue(stats.cutoffs() > 0);
+        assertTrue(stats.firstMoveCutoffRate() > 0.8);
+    }
+
+    @Test
+    public void testPruning() {
+        Board[] positions = {
+            position(),
+            position("a7-a6", "g7-f7", "g1-e2", "a1-c3"),
+            position("a7-b6", "a1-b2", "g1-f2", "g7-f6", "b6-c5"),
+        };
+        for (Board b : positions) {
+            Searcher full = fullWidth();
+            full.search(b, 1, 6, false, new AtomicBoolean());
+            Searcher pruned = new Searcher(new TranspositionTable(1));
+            pruned.setMoveTime(Long.MAX_VALUE);
+            pruned.search(b, 1, 6, false, new AtomicBoolean());
+            assertTrue(pruned.nodes() < full.nodes());
+            pruned.setMoveTime(100);
+            Move move = pruned.search(b, 1, AIPlayer.MAX_DEPTH, false,
+                                      new AtomicBoolean());
+            assertTrue(b.moveLegal(move));
+        }
+    }
+}
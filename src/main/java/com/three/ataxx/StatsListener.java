@@ -0,0 +1,11 @@
+package com.three.ataxx;
+
+/** An object told of the statistics of each search an automated player
+ *  makes for a move (see Game.setStatsListener). */
+interface StatsListener {
+
+    /** Report that the player of PLAYER searched for a move, with
+     *  statistics STATS. */
+    void searchDone(PieceState player, SearchStats stats);
+
+}
@@ -0,0 +1,140 @@
+package com.three.ataxx;
+
+import static com.three.ataxx.Board.ONESIDE;
+
+/** The 8 symmetries of the square board (rotations and reflections), as
+ *  permutations of squares, bitboards and moves.
+ *
+ *  Symmetry T (0 <= T < TRANSFORMS) first swaps columns and rows if bit 2
+ *  of T is set, then reverses the columns if bit 0 is set and the rows if
+ *  bit 1 is set.  IDENTITY leaves everything alone.  Positions related by
+ *  a symmetry play the same way, so tables of positions can keep one
+ *  entry for each class, stored under its canonical form: the image under
+ *  canonicalTransform() of any member of the class. */
+final class Symmetry {
+
+    /** Not instantiable. */
+    private Symmetry() {
+    }
+
+    /** Return the image under symmetry T of the square with bit number SQ. */
+    static int square(int sq, int t) {
+        return SQUARE_MAP[t][sq];
+    }
+
+    /** Return the image under symmetry T of the squares in MASK. */
+    static long transform(long mask, int t) {
+        long[][] rowImages = ROW_IMAGES[t];
+        long result = 0;
+        for (int r = 0; r < ONESIDE; r += 1) {
+            result |= rowImages[r][(int) (mask >>> (r * ONESIDE)) & ROW_MASK];
+        }
+        return result;
+    }
+
+    /** Return the image under symmetry T of the move with dense ID ID
+     *  (see Move.id()), which must stay on the board. */
+    static int moveId(int id, int t) {
+        return MOVE_MAP[t][id];
+    }
+
+    /** Return the image of MOVE under symmetry T. */
+    static Move move(Move move, int t) {
+        return Move.byId(MOVE_MAP[t][move.id()]);
+    }
+
+    /** Return the symmetry that undoes symmetry T. */
+    static int inverse(int t) {
+        return INVERSE[t];
+    }
+
+    /** Return the symmetry that takes the position with RED, BLUE and
+     *  BLOCKED masks to its canonical form: the image whose packed masks
+     *  (as in BoardKey) are smallest.  The lowest such symmetry is
+     *  returned when several images tie, i.e., when the position is
+     *  itself symmetric. */
+    static int canonicalTransform(long red, long blue, long blocked) {
+        int best = IDENTITY;
+        long bestRed = red | blocked, bestBlue = blue | blocked;
+        for (int t = 1; t < TRANSFORMS; t += 1) {
+            long tBlocked = transform(blocked, t);
+            long tRed = transform(red, t) | tBlocked;
+            int cmp = Long.compareUnsigned(tRed, bestRed);
+            if (cmp > 0) {
+                continue;
+            }
+            long tBlue = transform(blue, t) | tBlocked;
+            if (cmp < 0 || Long.compareUnsigned(tBlue, bestBlue) < 0) {
+                best = t;
+                bestRed = tRed;
+                bestBlue = tBlue;
+            }
+        }
+        return best;
+    }
+
+    /** Number of symmetries. */
+    static final int TRANSFORMS = 8;
+
+    /** The symmetry that changes nothing. */
+    static final int IDENTITY = 0;
+
+    /** Mask of one row of a bitboard, shifted down to bit 0. */
+    private static final int ROW_MASK = (1 << ONESIDE) - 1;
+
+    /** SQUARE_MAP[T][SQ] is square(SQ, T). */
+    private static final int[][] SQUARE_MAP = new int[TRANSFORMS][ONESIDE * ONESIDE];
+
+    /** ROW_IMAGES[T][R][BITS] is the image under T of the squares in row
+     *  R whose columns are the set bits of BITS. */
+    private static final long[][][] ROW_IMAGES =
+        new long[TRANSFORMS][ONESIDE][1 << ONESIDE];
+
+    /** MOVE_MAP[T][ID] is moveId(ID, T), or -1 for moves off the board. */
+    private static final int[][] MOVE_MAP = new int[TRANSFORMS][Move.NUM_IDS];
+
+    /** INVERSE[T] is inverse(T). */
+    private static final int[] INVERSE = new int[TRANSFORMS];
+
+    static {
+        for (int t = 0; t < TRANSFORMS; t += 1) {
+            for (int r = 0; r < ONESIDE; r += 1) {
+                for (int c = 0; c < ONESIDE; c += 1) {
+                    int c2 = (t & 4) != 0 ? r : c;
+                    int r2 = (t & 4) != 0 ? c : r;
+                    if ((t & 1) != 0) {
+                        c2 = ONESIDE - 1 - c2;
+                    }
+                    if ((t & 2) != 0) {
+                        r2 = ONESIDE - 1 - r2;
+                    }
+                    SQUARE_MAP[t][r * ONESIDE + c] = r2 * ONESIDE + c2;
+                }
+                for (int bits = 0; bits <= ROW_MASK; bits += 1) {
+                    long image = 0;
+                    for (int c = 0; c < ONESIDE; c += 1) {
+                        if ((bits & (1 << c)) != 0) {
+                            image |= 1L << SQUARE_MAP[t][r * ONESIDE + c];
+                        }
+                    }
+                    ROW_IMAGES[t][r][bits] = image;
+                }
+            }
+            for (int id = 0; id < Move.PASS_ID; id += 1) {
+                int to = Move.idTo(id);
+                MOVE_MAP[t][id] = to < 0 ? -1
+                    : Move.id(Move.code(SQUARE_MAP[t][Move.idFrom(id)],
+                                        SQUARE_MAP[t][to]));
+            }
+            MOVE_MAP[t][Move.PASS_ID] = Move.PASS_ID;
+        }
+        for (int t = 0; t < TRANSFORMS; t += 1) {
+            for (int u = 0; u < TRANSFORMS; u += 1) {
+                if (SQUARE_MAP[u][SQUARE_MAP[t][1]] == 1
+                        && SQUARE_MAP[u][SQUARE_MAP[t][ONESIDE]] == ONESIDE) {
+                    INVERSE[t] = u;
+                }
+            }
+        }
+    }
+}
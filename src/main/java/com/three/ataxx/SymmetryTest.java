@@ -0,0 +1,97 @@
+package com.three.ataxx;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SymmetryTest {
+
+    /** Return the image of B under symmetry T, with the same side to
+     *  move. */
+    private static Board transformed(Board b, int t) {
+        Board result = new Board();
+        for (int sq = 0; sq < Board.ONESIDE * Board.ONESIDE; sq++) {
+            result.setContent(charCol(Symmetry.square(sq, t)),
+                    charRow(Symmetry.square(sq, t)),
+                    b.getContent(charCol(sq), charRow(sq)));
+        }
+        if (b.nextMove() != result.nextMove()) {
+            result.pass();
+        }
+        return result;
+    }
+
+    private static char charCol(int sq) {
+        return (char) ('a' + sq % Board.ONESIDE);
+    }
+
+    private static char charRow(int sq) {
+        return (char) ('1' + sq / Board.ONESIDE);
+    }
+
+    @Test
+    public void testCanonicalKey() {
+        Board b = new Board();
+        b.setBlock('c', '4');
+        b.createMove("a7-b5");
+        b.createMove("a1-b1");
+        b.createMove("g1-e3");
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            Board image = transformed(b, t);
+            assertEquals(Long.bitCount(b.pieces(PieceState.RED)),
+                    Long.bitCount(image.pieces(PieceState.RED)));
+            assertEquals(Symmetry.transform(b.pieces(PieceState.RED), t),
+                    image.pieces(PieceState.RED));
+            assertEquals(b.canonicalKey(), image.canonicalKey());
+            assertEquals(b.key(), transformed(image, Symmetry.inverse(t)).key());
+        }
+    }
+
+    @Test
+    public void testMoveTransform() {
+        Board b = new Board();
+        b.createMove("a7-b6");
+        b.createMove("a1-a3");
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            Board image = transformed(b, t);
+            Move move = Move.move("b6-b4");
+            Board after = new Board(b);
+            after.createMove(move);
+            image.createMove(Symmetry.move(move, t));
+            assertEquals(after.toString(), transformed(image, Symmetry.inverse(t)).toString());
+        }
+    }
+
+    /** Return the canonical forms (see SARSAPlayer.toCanonical) of the
+     *  moves of B. */
+    private static Set<Move> canonicalMoves(Board b) {
+        MoveList moves = new MoveList();
+        b.generateMoves(moves);
+        Set<Move> result = new HashSet<>();
+        for (int k = 0; k < moves.size(); k++) {
+            result.add(SARSAPlayer.toCanonical(b, moves.move(k)));
+        }
+        return result;
+    }
+
+    @Test
+    public void testCanonicalMoves() {
+        Board b = new Board();
+        b.setBlock('c', '4');
+        b.createMove("a7-b6");
+        b.createMove("a1-b2");
+        b.createMove("b6-c5");
+        b.createMove("b2-b3");
+        Set<Move> expected = canonicalMoves(b);
+        assertEquals(b.generateMoves(new MoveList()), expected.size());
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            Board image = transformed(b, t);
+            assertEquals(b.canonicalKey(), image.canonicalKey());
+            assertEquals(expected, canonicalMoves(image));
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.three.ataxx;
+
+/** Fixtures and reference computations shared by the unit tests. */
+final class TestHelper {
+
+    /** Not instantiable. */
+    private TestHelper() {
+    }
+
+    /** Return a new board on which MOVES have been made. */
+    static Board position(String... moves) {
+        Board b = new Board();
+        for (String s : moves) {
+            b.createMove(s);
+        }
+        return b;
+    }
+
+    /** Return a new game that reads no commands, displays nothing and
+     *  reports nothing, in which MOVES have been made: a place for
+     *  players under test to play. */
+    static Game game(String... moves) {
+        Game game = new Game(p -> null, b -> { }, new Reporter() {
+            public void announceWinner(PieceState state) { }
+            public void announceMove(Move move, PieceState player) { }
+            public void message(String format, Object... args) { }
+            public void error(String format, Object... args) { }
+        });
+        for (String move : moves) {
+            game.getAtaxxBoard().createMove(move);
+        }
+        return game;
+    }
+
+    /** Return a plain serial minimax value of BOARD to DEPTH, for the
+     *  side to move, with no pruning or tables: the reference that the
+     *  searches' values are checked against. */
+    static int minimax(Board board, int depth) {
+        if (depth == 0 || board.getWinner() != null) {
+            return Searcher.staticScore(board);
+        }
+        MoveList moves = new MoveList();
+        if (board.generateMoves(moves) == 0) {
+            board.makeMove(Move.PASS_CODE);
+            int value = -minimax(board, depth - 1);
+            board.unmakeMove();
+            return value;
+        }
+        int best = -Integer.MAX_VALUE;
+        for (int k = 0; k < moves.size(); k++) {
+            board.makeMove(moves.get(k));
+            best = Math.max(best, -minimax(board, depth - 1));
+            board.unmakeMove();
+        }
+        return best;
+    }
+}
@@ -0,0 +1,146 @@
+package com.three.ataxx;
+
+import java.util.Arrays;
+
+/** A fixed-size table of search results, indexed by Board.hashKey(), so
+ *  that a position reached again by another order of moves need not be
+ *  searched again.
+ *
+ *  The table is two arrays of longs allocated once: the keys, and the
+ *  entries, each packing a score, the kind of bound it is, the depth it
+ *  was searched to and the ID of the best move found.  Entries come in
+ *  buckets of two slots.  The first keeps the deepest result for its
+ *  bucket (or the newest, once the search that stored it is over); the
+ *  second always takes whatever the first refused, so that recent
+ *  shallow results are not lost.  The table is kept from one move to the
+ *  next, as positions searched for one move recur in the next search.
+ *
+ *  The threads of a multi-threaded search share one table without
+ *  locks.  To detect a slot half-written by one thread and read by
+ *  another, the key array holds each hash key XORed with its entry, so
+ *  that a torn key and entry no longer give back the key probed for. */
+class TranspositionTable {
+
+    /** Bound kind: the score is a lower bound on the value. */
+    static final int LOWER = 1;
+    /** Bound kind: the score is an upper bound on the value. */
+    static final int UPPER = 2;
+    /** Bound kind: the score is the exact value. */
+    static final int EXACT = LOWER | UPPER;
+
+    /** Move ID recorded when no best move is known. */
+    static final int NO_MOVE = 0x7ff;
+
+    /** Result of probe for a position not in the table. */
+    static final long MISS = 0;
+
+    /** Bytes taken by one slot: a key and an entry. */
+    static final int SLOT_BYTES = 16;
+
+    /** A table taking about MEGABYTES megabytes (at least one bucket):
+     *  the largest power of two number of slots that fits. */
+    TranspositionTable(int megabytes) {
+        long slots = Math.max(2, ((long) megabytes << 20) / SLOT_BYTES);
+        int buckets = Integer.highestOneBit((int) Math.min(slots / 2, 1 << 29));
+        keys = new long[2 * buckets];
+        entries = new long[2 * buckets];
+        mask = buckets - 1;
+    }
+
+    /** Return the packed entry stored for the position whose hash key is
+     *  KEY, or MISS if there is none. */
+    long probe(long key) {
+        int slot = slot(key);
+        long entry = entries[slot];
+        if ((keys[slot] ^ entry) == key && entry != MISS) {
+            return entry;
+        }
+        entry = entries[slot + 1];
+        if ((keys[slot + 1] ^ entry) == key && entry != MISS) {
+            return entry;
+        }
+        return MISS;
+    }
+
+    /** Record that the position with hash key KEY, searched to DEPTH, has
+     *  a value with bound kind BOUND (LOWER, UPPER or EXACT) of SCORE, and
+     *  that MOVEID (or NO_MOVE) is the ID of its best move. */
+    void store(long key, int depth, int bound, int score, int moveId) {
+        int slot = slot(key);
+        long old = entries[slot];
+        if (old != MISS && (keys[slot] ^ old) != key && depth(old) > depth
+                && generation(old) == generation) {
+            slot += 1;
+        }
+        long entry = (score & 0xffffffffL)
+                | ((long) moveId << MOVE_SHIFT)
+                | ((long) depth << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) generation << GENERATION_SHIFT);
+        keys[slot] = key ^ entry;
+        entries[slot] = entry;
+    }
+
+    /** Note the start of a new search, after which entries from earlier
+     *  searches give way to new ones regardless of depth. */
+    void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, MISS);
+    }
+
+    /** Return the number of slots in me. */
+    int capacity() {
+        return keys.length;
+    }
+
+    /** Return the score packed in ENTRY. */
+    static int score(long entry) {
+        return (int) entry;
+    }
+
+    /** Return the best move ID packed in ENTRY, or NO_MOVE. */
+    static int moveId(long entry) {
+        return (int) (entry >>> MOVE_SHIFT) & NO_MOVE;
+    }
+
+    /** Return the search depth packed in ENTRY. */
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    /** Return the bound kind packed in ENTRY. */
+    static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & EXACT;
+    }
+
+    /** Return the search generation packed in ENTRY. */
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    /** Return the first slot of the bucket for KEY. */
+    private int slot(long key) {
+        return ((int) key & mask) << 1;
+    }
+
+    /** Layout of an entry: score in bits 0-31, then the move ID, depth,
+     *  bound kind (never 0, so that no entry equals MISS) and generation. */
+    private static final int MOVE_SHIFT = 32, DEPTH_SHIFT = 43,
+        BOUND_SHIFT = 51, GENERATION_SHIFT = 53;
+    /** Masks for the depth and generation fields. */
+    private static final int DEPTH_MASK = 0xff, GENERATION_MASK = 0x3f;
+
+    /** Hash keys XORed with their entries, two slots per bucket. */
+    private final long[] keys;
+    /** Packed entries, parallel to keys. */
+    private final long[] entries;
+    /** Number of buckets less one. */
+    private final int mask;
+    /** Generation of the current search. */
+    private int generation;
+}
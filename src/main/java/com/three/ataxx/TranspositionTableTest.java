@@ -0,0 +1,40 @@
+package com.three.ataxx;
+
+import org.junit.Test;
+
+import static com.three.ataxx.TranspositionTable.*;
+import static org.junit.Assert.assertEquals;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(1 << 16, table.capacity());
+        assertEquals(MISS, table.probe(12345L));
+        table.store(12345L, 7, LOWER, -250, Move.PASS_ID);
+        long entry = table.probe(12345L);
+        assertEquals(-250, score(entry));
+        assertEquals(7, depth(entry));
+        assertEquals(LOWER, bound(entry));
+        assertEquals(Move.PASS_ID, moveId(entry));
+        table.clear();
+        assertEquals(MISS, table.probe(12345L));
+    }
+
+    @Test
+    public void testReplacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long deep = 5L, shallow1 = deep + (1L << 40), shallow2 = deep + (2L << 40);
+        table.store(deep, 9, EXACT, 10, NO_MOVE);
+        table.store(shallow1, 2, EXACT, 20, NO_MOVE);
+        table.store(shallow2, 3, EXACT, 30, NO_MOVE);
+        assertEquals(10, score(table.probe(deep)));
+        assertEquals(MISS, table.probe(shallow1));
+        assertEquals(30, score(table.probe(shallow2)));
+        table.newSearch();
+        table.store(shallow1, 1, UPPER, 40, NO_MOVE);
+        assertEquals(MISS, table.probe(deep));
+        assertEquals(40, score(table.probe(shallow1)));
+    }
+}
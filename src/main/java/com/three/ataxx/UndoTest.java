@@ -0,0 +1,68 @@
+package com.three.ataxx;
+
+import org.junit.Test;
+
+import static com.three.ataxx.PieceState.*;
+import static org.junit.Assert.assertEquals;
+
+public class UndoTest {
+
+    private static void createMoves(Board b, String[] moves) {
+        for (String s : moves) {
+            b.createMove(s.charAt(0), s.charAt(1),
+                    s.charAt(3), s.charAt(4));
+        }
+    }
+
+    @Test
+    public void testUndoCapture() {
+        Board b = new Board();
+        String[] moves = {
+                "a7-b6", "a1-a3",
+                "b6-b5", "g7-f7"
+        };
+        createMoves(b, moves);
+        String before = b.toString();
+        int consec = b.getConsecJumpNums();
+        b.createMove("b5-b4"); // captures the blue piece on a3
+        assertEquals("6 red vs 2 blue", b.getScore());
+        b.undoMove();
+        assertEquals(before, b.toString());
+        assertEquals("4 red vs 3 blue", b.getScore());
+        assertEquals(RED, b.nextMove());
+        assertEquals(consec, b.getConsecJumpNums());
+    }
+
+    @Test
+    public void testUndoJump() {
+        Board b = new Board();
+        b.createMove("a7-c6");
+        assertEquals(1, b.getConsecJumpNums());
+        assertEquals(EMPTY, b.getContent('a', '7'));
+        b.undoMove();
+        assertEquals(RED, b.getContent('a', '7'));
+        assertEquals(EMPTY, b.getContent('c', '6'));
+        assertEquals(0, b.getConsecJumpNums());
+        assertEquals(new Board().toString(), b.toString());
+    }
+
+    @Test
+    public void testUndoAll() {
+        Board b = new Board();
+        String[] moves = {
+                "a7-a6", "a1-b2",
+                "g1-f2", "g7-f7",
+                "a6-a5", "a1-a2",
+                "g1-f1", "g7-g6",
+                "a5-a4", "a1-b1"
+        };
+        createMoves(b, moves);
+        for (int i = 0; i < moves.length; i++) {
+            b.undoMove();
+        }
+        assertEquals(new Board().toString(), b.toString());
+        assertEquals(0, b.moveNums());
+        assertEquals(null, b.getWinner());
+    }
+
+}